@@ -1,9 +1,14 @@
 package com.thecodefacts.spring.security.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.thecodefacts.spring.security.security.UserDetailsChangedEvent;
 import lombok.*;
 
+import org.springframework.data.domain.DomainEvents;
+
 import javax.persistence.*;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Set;
 
 import static javax.persistence.CascadeType.ALL;
@@ -45,4 +50,10 @@ public class AppUser {
     @OneToMany(mappedBy = "createdBy", cascade = ALL)
     @JsonIgnore
     private Set<Course> createdCourses;
+
+    // Published on every save through AppUserRepository, which covers password and role changes
+    @DomainEvents
+    Collection<Object> domainEvents() {
+        return Collections.singletonList(new UserDetailsChangedEvent(username));
+    }
 }
@@ -0,0 +1,82 @@
+package com.thecodefacts.spring.security.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thecodefacts.spring.security.config.UserCacheConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * UserCache used by the DaoAuthenticationProvider, so an authentication does not load the user and its roles again.
+ * Users are copied in and out of the cache, because the provider manager erases the password of the returned
+ * principal after authentication, which would otherwise erase the cached one.
+ * Entries are evicted once the transaction changing a user or a role commits.
+ */
+@Component
+public class CaffeineUserCache implements UserCache {
+    @Autowired
+    private UserCacheConfig userCacheConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, UserDetails> cache;
+
+    @PostConstruct
+    public void init() {
+        if (userCacheConfig.isEnabled()) {
+            cache = Caffeine.newBuilder()
+                    .maximumSize(userCacheConfig.getMaximumSize())
+                    .expireAfterWrite(userCacheConfig.getExpireAfterWriteInSeconds(), TimeUnit.SECONDS)
+                    .recordStats()
+                    .build();
+            // Publishes cache.gets (hit/miss), cache.evictions and cache.size under the name below
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+        }
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        if (cache == null) {
+            return null;
+        }
+        UserDetails userDetails = cache.getIfPresent(username);
+        return userDetails != null ? User.withUserDetails(userDetails).build() : null;
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (cache != null) {
+            cache.put(user.getUsername(), User.withUserDetails(user).build());
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        if (cache != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    // Runs without a transaction too, for changes saved outside of one
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDetailsChanged(UserDetailsChangedEvent event) {
+        if (cache == null) {
+            return;
+        }
+        if (event.getUsername() != null) {
+            cache.invalidate(event.getUsername());
+        } else {
+            cache.invalidateAll();
+        }
+    }
+}
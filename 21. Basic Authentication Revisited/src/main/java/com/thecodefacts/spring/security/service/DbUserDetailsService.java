@@ -3,6 +3,8 @@ package com.thecodefacts.spring.security.service;
 import com.thecodefacts.spring.security.domain.AppRole;
 import com.thecodefacts.spring.security.domain.AppUser;
 import com.thecodefacts.spring.security.repo.AppUserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,6 +12,7 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -18,8 +21,25 @@ public class DbUserDetailsService implements UserDetailsService {
     @Autowired
     private AppUserRepository appUserRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Only timed on a user cache miss, as the DaoAuthenticationProvider checks the cache first
+    private Timer loadTimer;
+
+    @PostConstruct
+    public void init() {
+        loadTimer = Timer.builder("user.details.load")
+                .description("Time taken to load a user and its permissions from the database")
+                .register(meterRegistry);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return loadTimer.record(() -> this.loadAppUser(username));
+    }
+
+    private UserDetails loadAppUser(String username) {
         AppUser appUser = appUserRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException(String.format("User %s not found", username)));
 
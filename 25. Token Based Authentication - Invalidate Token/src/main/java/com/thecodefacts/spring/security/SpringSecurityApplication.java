@@ -2,8 +2,10 @@ package com.thecodefacts.spring.security;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SpringSecurityApplication {
 
 	public static void main(String[] args) {
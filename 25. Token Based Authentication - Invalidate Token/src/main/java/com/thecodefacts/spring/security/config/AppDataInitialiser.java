@@ -8,6 +8,7 @@ import com.thecodefacts.spring.security.repo.AppPermissionRepository;
 import com.thecodefacts.spring.security.repo.AppRoleRepository;
 import com.thecodefacts.spring.security.repo.AppUserRepository;
 import com.thecodefacts.spring.security.repo.CourseRepository;
+import com.thecodefacts.spring.security.security.TokenStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
@@ -37,6 +38,9 @@ public class AppDataInitialiser implements ApplicationRunner {
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private TokenStore tokenStore;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -53,6 +57,7 @@ public class AppDataInitialiser implements ApplicationRunner {
     }
 
     private void clearAppData() {
+        tokenStore.deleteAll();
         appUserRepository.deleteAll();
         appRoleRepository.deleteAll();
         appPermissionRepository.deleteAll();
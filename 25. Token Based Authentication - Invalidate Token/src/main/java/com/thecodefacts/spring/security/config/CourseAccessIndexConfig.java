@@ -0,0 +1,29 @@
+package com.thecodefacts.spring.security.config;
+
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "course.access-index")
+@Setter
+public class CourseAccessIndexConfig {
+    private boolean enabled;
+
+    private Long maximumSize = 10_000L;
+
+    // Upper bound for changes made outside the repositories, which do not update the indexed user
+    private Long expireAfterWriteInSeconds = 600L;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public Long getExpireAfterWriteInSeconds() {
+        return expireAfterWriteInSeconds;
+    }
+}
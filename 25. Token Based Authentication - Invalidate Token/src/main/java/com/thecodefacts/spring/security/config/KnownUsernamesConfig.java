@@ -0,0 +1,24 @@
+package com.thecodefacts.spring.security.config;
+
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "user.known-usernames")
+@Setter
+public class KnownUsernamesConfig {
+    // Rejects logins for usernames that were never created without querying app_user
+    private boolean filterEnabled;
+
+    // Number of users the Bloom filter is sized for, beyond which its false positive rate increases
+    private Integer expectedEntries = 100_000;
+
+    public boolean isFilterEnabled() {
+        return filterEnabled;
+    }
+
+    public Integer getExpectedEntries() {
+        return expectedEntries;
+    }
+}
@@ -0,0 +1,45 @@
+package com.thecodefacts.spring.security.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Counts the SQL statements Hibernate prepares on behalf of the current request, read by QueryCountFilter.
+// The counter is held by the thread handling the request, and by any worker thread it is explicitly handed to.
+public class RequestStatementCounter implements StatementInspector {
+    private static final ThreadLocal<AtomicInteger> CURRENT_COUNT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        AtomicInteger count = CURRENT_COUNT.get();
+        if (count != null) {
+            count.incrementAndGet();
+        }
+        return sql;
+    }
+
+    // Starts counting on the current thread, and returns the counter to read once the request is handled
+    public static AtomicInteger start() {
+        AtomicInteger count = new AtomicInteger();
+        CURRENT_COUNT.set(count);
+        return count;
+    }
+
+    // Counter of the current thread, or null when its statements are not counted
+    public static AtomicInteger current() {
+        return CURRENT_COUNT.get();
+    }
+
+    // Counts the statements of the current thread into the given counter, typically the one of the request it works for
+    public static void bind(AtomicInteger count) {
+        if (count != null) {
+            CURRENT_COUNT.set(count);
+        } else {
+            CURRENT_COUNT.remove();
+        }
+    }
+
+    public static void stop() {
+        CURRENT_COUNT.remove();
+    }
+}
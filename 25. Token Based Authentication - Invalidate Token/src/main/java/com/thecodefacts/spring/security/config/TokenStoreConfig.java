@@ -0,0 +1,78 @@
+package com.thecodefacts.spring.security.config;
+
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "token.store")
+@Setter
+public class TokenStoreConfig {
+    // db: every token lookup queries app_token, memory: tokens are kept in memory and written behind to app_token
+    private String mode = "db";
+
+    // Number of maps the in-memory tokens are spread over by token digest
+    private Integer shards = 16;
+
+    // Maximum number of token writes sent to the database in one batch
+    private Integer writeBehindBatchSize = 500;
+
+    // Flushes a failed batch is retried for as a whole, before it is written token by token and failing tokens are dropped
+    private Integer writeBehindMaxRetries = 3;
+
+    // Tokens expire after this time without being used, or this long after being issued when sliding expiry is disabled
+    private Integer idleTimeoutInSeconds = 1800;
+
+    private boolean slidingExpiryEnabled;
+
+    // Minimum time a token expiry is pushed back by, so a token in constant use is rewritten at most once per interval
+    private Integer expiryExtensionIntervalInSeconds = 60;
+
+    // Expired tokens deleted per transaction by the reaper
+    private Integer reaperChunkSize = 1000;
+
+    private Integer reaperMaximumChunksPerSweep = 100;
+
+    // Pause between two chunks, which caps the rate at which the reaper deletes rows
+    private Long reaperChunkPauseInMillis = 100L;
+
+    public String getMode() {
+        return mode;
+    }
+
+    public Integer getShards() {
+        return shards;
+    }
+
+    public Integer getWriteBehindBatchSize() {
+        return writeBehindBatchSize;
+    }
+
+    public Integer getWriteBehindMaxRetries() {
+        return writeBehindMaxRetries;
+    }
+
+    public Integer getIdleTimeoutInSeconds() {
+        return idleTimeoutInSeconds;
+    }
+
+    public boolean isSlidingExpiryEnabled() {
+        return slidingExpiryEnabled;
+    }
+
+    public Integer getExpiryExtensionIntervalInSeconds() {
+        return expiryExtensionIntervalInSeconds;
+    }
+
+    public Integer getReaperChunkSize() {
+        return reaperChunkSize;
+    }
+
+    public Integer getReaperMaximumChunksPerSweep() {
+        return reaperMaximumChunksPerSweep;
+    }
+
+    public Long getReaperChunkPauseInMillis() {
+        return reaperChunkPauseInMillis;
+    }
+}
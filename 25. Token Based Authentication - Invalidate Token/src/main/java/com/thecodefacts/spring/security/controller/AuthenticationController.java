@@ -1,7 +1,12 @@
 package com.thecodefacts.spring.security.controller;
 
+import com.thecodefacts.spring.security.config.LoginExecutorConfig;
+import com.thecodefacts.spring.security.security.LoginCapacityExceededException;
 import com.thecodefacts.spring.security.service.AuthenticationService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -10,12 +15,16 @@ import java.util.Map;
 
 import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
 
+@Slf4j
 @RestController
 @RequestMapping("auth")
 public class AuthenticationController {
     @Autowired
     private AuthenticationService authenticationService;
 
+    @Autowired
+    private LoginExecutorConfig loginExecutorConfig;
+
     @PostMapping(path = "token", consumes = {APPLICATION_FORM_URLENCODED_VALUE})
     public ResponseEntity<Map<String,String>> generateToken(@RequestParam("username") String username,
                              @RequestParam("password") String password) {
@@ -29,4 +38,12 @@ public class AuthenticationController {
         authenticationService.invalidateToken();
         return ResponseEntity.noContent().build();
     }
+
+    @ExceptionHandler(LoginCapacityExceededException.class)
+    public ResponseEntity<Map<String, String>> loginCapacityExceeded(LoginCapacityExceededException e) {
+        log.warn("Login rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginExecutorConfig.getRetryAfterInSeconds()))
+                .body(Collections.singletonMap("error", e.getMessage()));
+    }
 }
@@ -0,0 +1,47 @@
+package com.thecodefacts.spring.security.domain;
+
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.util.Date;
+
+// One row per issued token, so a user can hold a token per device. Only the SHA-256 digest of the token is stored.
+@Entity(name = "app_token")
+@Table(indexes = @Index(name = "ix_app_token_expiry", columnList = "tokenExpiryTime"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "tokenHash")
+public class AppToken implements Persistable<String> {
+    @Id
+    @Column(length = 43)
+    private String tokenHash;
+
+    @ManyToOne(optional = false)
+    private AppUser appUser;
+
+    @Column(nullable = false)
+    private Date tokenExpiryTime;
+
+    // Tokens are only ever inserted or deleted, so a token not loaded from the database is always new
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public String getId() {
+        return tokenHash;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
@@ -1,11 +1,18 @@
 package com.thecodefacts.spring.security.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.thecodefacts.spring.security.security.EnrollmentsChangedEvent;
+import com.thecodefacts.spring.security.security.UserDetailsChangedEvent;
 import lombok.*;
 
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.DomainEvents;
+
 import javax.persistence.*;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static javax.persistence.CascadeType.ALL;
 
@@ -47,7 +54,19 @@ public class AppUser {
     @JsonIgnore
     private Set<Course> createdCourses;
 
-    private String token;
+    // Published on every save through AppUserRepository, which covers password, role and enrollment changes
+    @DomainEvents
+    Collection<Object> domainEvents() {
+        return Arrays.asList(new UserDetailsChangedEvent(username), new EnrollmentsChangedEvent(id, this.getEnrolledCourseIds()));
+    }
 
-    private Date tokenExpiryTime;
+    // Enrolled courses that were never loaded cannot have changed, and are not loaded just to publish them
+    private Set<Long> getEnrolledCourseIds() {
+        if (enrolledCourses == null || !Hibernate.isInitialized(enrolledCourses)) {
+            return null;
+        }
+        return enrolledCourses.stream()
+                .map(Course::getId)
+                .collect(Collectors.toSet());
+    }
 }
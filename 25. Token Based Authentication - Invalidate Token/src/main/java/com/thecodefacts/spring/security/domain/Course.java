@@ -3,9 +3,14 @@ package com.thecodefacts.spring.security.domain;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.thecodefacts.spring.security.security.CourseSavedEvent;
 import lombok.*;
+import org.springframework.data.domain.AfterDomainEventPublication;
+import org.springframework.data.domain.DomainEvents;
 
 import javax.persistence.*;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Set;
 
 import static javax.persistence.CascadeType.*;
@@ -17,6 +22,7 @@ import static javax.persistence.CascadeType.REFRESH;
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(of = "id")
+@EntityListeners(CourseEntityListener.class)
 public class Course {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -38,4 +44,28 @@ public class Course {
 
     @ManyToOne(fetch = FetchType.EAGER)
     private AppUser createdBy;
+
+    // Creator as last loaded or saved, so a change of creator only has to update the previous and the new one
+    // Not a bean property, so BeanUtils.copyProperties() on update does not overwrite it
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Long savedCreatedById;
+
+    // Published on every save through CourseRepository, which covers new courses and a change of creator
+    @DomainEvents
+    Collection<Object> domainEvents() {
+        return Collections.singletonList(new CourseSavedEvent(id, this.getCreatedById(), savedCreatedById));
+    }
+
+    @PostLoad
+    @PostPersist
+    @AfterDomainEventPublication
+    void rememberCreatedBy() {
+        savedCreatedById = this.getCreatedById();
+    }
+
+    private Long getCreatedById() {
+        return createdBy != null ? createdBy.getId() : null;
+    }
 }
@@ -0,0 +1,21 @@
+package com.thecodefacts.spring.security.domain;
+
+import com.thecodefacts.spring.security.security.CourseDeletedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostRemove;
+
+// Spring Data only publishes the domain events of saved entities, so a deleted course is published from here
+@Component
+public class CourseEntityListener {
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @PostRemove
+    public void onRemoved(Course course) {
+        applicationEventPublisher.publishEvent(
+                new CourseDeletedEvent(course.getId(), course.getCreatedBy() != null ? course.getCreatedBy().getId() : null));
+    }
+}
@@ -1,11 +1,11 @@
 package com.thecodefacts.spring.security.filters;
 
 import com.thecodefacts.spring.security.security.AuthenticationFacade;
+import com.thecodefacts.spring.security.security.TokenDigest;
 import com.thecodefacts.spring.security.service.DbUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -33,9 +33,12 @@ public class TokenVerificationFilter extends OncePerRequestFilter {
             UserDetails userDetails = userDetailsService.loadUserByToken(token);
 
             if (userDetails != null) {
-                Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
-                        userDetails.getUsername(), null, userDetails.getAuthorities()
+                // The principal is the AppPrincipal itself, so permission checks can test its permission set
+                UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                        userDetails, null, userDetails.getAuthorities()
                 );
+                // Identifies the token to delete when it is invalidated
+                authentication.setDetails(TokenDigest.sha256(token));
                 authenticationFacade.setAuthentication(authentication);
             }
         }
@@ -3,9 +3,15 @@ package com.thecodefacts.spring.security.repo;
 import com.thecodefacts.spring.security.domain.AppRole;
 import com.thecodefacts.spring.security.enums.RoleEnum;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface AppRoleRepository extends JpaRepository<AppRole, Long> {
     AppRole findByName(RoleEnum name);
+
+    @Query("select r.name as role, p.name as permission from app_role r left join r.permissions p")
+    List<RolePermissionView> findRolePermissions();
 }
@@ -0,0 +1,43 @@
+package com.thecodefacts.spring.security.repo;
+
+import com.thecodefacts.spring.security.domain.AppToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface AppTokenRepository extends JpaRepository<AppToken, String> {
+    List<AppToken> findByTokenExpiryTimeGreaterThan(Date currentDate);
+
+    @Query("select u.id as id, u.username as username, u.password as password, r.name as role, t.tokenExpiryTime as tokenExpiryTime " +
+            "from app_token t join t.appUser u left join u.roles r " +
+            "where t.tokenHash = :tokenHash and t.tokenExpiryTime > :currentDate")
+    List<TokenRoleView> findRolesByTokenHash(@Param("tokenHash") String tokenHash, @Param("currentDate") Date currentDate);
+
+    // Never shortens an expiry, in case the token was extended further in the meantime
+    @Modifying
+    @Query("update app_token t set t.tokenExpiryTime = :tokenExpiryTime where t.tokenHash in :tokenHashes and t.tokenExpiryTime < :tokenExpiryTime")
+    int extendTokenExpiryTime(@Param("tokenHashes") Collection<String> tokenHashes, @Param("tokenExpiryTime") Date tokenExpiryTime);
+
+    @Query("select t.tokenHash from app_token t where t.tokenExpiryTime <= :currentDate order by t.tokenExpiryTime")
+    List<String> findExpiredTokenHashes(@Param("currentDate") Date currentDate, Pageable pageable);
+
+    // Checks the expiry again, in case a token was extended after it was selected
+    @Modifying
+    @Query("delete from app_token t where t.tokenHash in :tokenHashes and t.tokenExpiryTime <= :currentDate")
+    int deleteExpiredByTokenHashIn(@Param("tokenHashes") Collection<String> tokenHashes, @Param("currentDate") Date currentDate);
+
+    // Only deletes the token if it belongs to the given user. The user is matched in a subquery, because a path
+    // through t.appUser would need a join, which a bulk delete cannot have.
+    @Modifying
+    @Query("delete from app_token t where t.tokenHash = :tokenHash " +
+            "and t.appUser.id in (select u.id from app_user u where u.username = :username)")
+    int deleteByTokenHashAndUsername(@Param("tokenHash") String tokenHash, @Param("username") String username);
+}
@@ -2,14 +2,23 @@ package com.thecodefacts.spring.security.repo;
 
 import com.thecodefacts.spring.security.domain.AppUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AppUserRepository extends JpaRepository<AppUser, Long> {
     Optional<AppUser> findByUsername(String username);
 
-    Optional<AppUser> findByTokenAndTokenExpiryTimeGreaterThan(String token, Date currentDate);
+    @Query("select u.username from app_user u")
+    List<String> findAllUsernames();
+
+    // Loads everything needed for the UserDetails in a single statement, instead of the user and then its EAGER roles and permissions.
+    // Permissions are resolved from the roles by the RolePermissionMatrix.
+    @Query("select u.id as id, u.username as username, u.password as password, r.name as role " +
+            "from app_user u left join u.roles r where u.username = :username")
+    List<UserRoleView> findRolesByUsername(@Param("username") String username);
 }
@@ -2,8 +2,25 @@ package com.thecodefacts.spring.security.repo;
 
 import com.thecodefacts.spring.security.domain.Course;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
+    // Primary key lookup on the join table, without loading the user or its enrolled courses
+    @Query(value = "select count(*) from app_user_to_course where app_user_id = :appUserId and course_id = :courseId", nativeQuery = true)
+    long countEnrollments(@Param("appUserId") Long appUserId, @Param("courseId") Long courseId);
+
+    // Primary key lookup on course, without loading the course or its creator
+    @Query(value = "select count(*) from course where id = :courseId and created_by_id = :appUserId", nativeQuery = true)
+    long countCreatedBy(@Param("appUserId") Long appUserId, @Param("courseId") Long courseId);
+
+    @Query(value = "select course_id from app_user_to_course where app_user_id = :appUserId", nativeQuery = true)
+    List<Long> findEnrolledCourseIds(@Param("appUserId") Long appUserId);
+
+    @Query(value = "select id from course where created_by_id = :appUserId", nativeQuery = true)
+    List<Long> findCreatedCourseIds(@Param("appUserId") Long appUserId);
 }
@@ -0,0 +1,7 @@
+package com.thecodefacts.spring.security.repo;
+
+import java.util.Date;
+
+public interface TokenRoleView extends UserRoleView {
+    Date getTokenExpiryTime();
+}
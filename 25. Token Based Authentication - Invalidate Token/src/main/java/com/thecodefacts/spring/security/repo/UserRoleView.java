@@ -0,0 +1,14 @@
+package com.thecodefacts.spring.security.repo;
+
+import com.thecodefacts.spring.security.enums.RoleEnum;
+
+// One row per role of a user, with a null role for a user without any
+public interface UserRoleView {
+    Long getId();
+
+    String getUsername();
+
+    String getPassword();
+
+    RoleEnum getRole();
+}
@@ -25,7 +25,7 @@ public class AppUserPermissionEvaluator implements PermissionEvaluatorStrategy<A
 
             switch(permissionEnum) {
                 case VIEW_PROFILE:
-                    return this.isInstructor(appUser) || this.isSame(authentication, appUser);
+                    return this.isSame(authentication, appUser) || this.isInstructor(appUser);
                 default:
                     return false;
             }
@@ -49,9 +49,7 @@ public class AppUserPermissionEvaluator implements PermissionEvaluatorStrategy<A
     public boolean isInstructor(AppUser appuser) {
         return appuser.getRoles()
                 .stream()
-                .anyMatch(appRole ->
-                        appRole.getName().equals(INSTRUCTOR)
-                );
+                .anyMatch(appRole -> appRole.getName() == INSTRUCTOR);
     }
 
     // Check if the requested appuser object is same as authenticated user
@@ -0,0 +1,178 @@
+package com.thecodefacts.spring.security.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thecodefacts.spring.security.config.CourseAccessIndexConfig;
+import com.thecodefacts.spring.security.repo.CourseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Ids of the courses each user is enrolled in and has created, held in compressed bitmaps, so PLAY_COURSE and
+ * UPDATE_COURSE are decided without a query. A user is loaded on its first check, and the least used users are
+ * evicted once the maximum size is reached.
+ * Bitmaps are never modified once cached, a change replaces them with an updated copy, so reads need no locking.
+ * A user loaded while a change is applied is not cached, as the load may have read the rows from before the change.
+ */
+@Component
+public class CourseAccessIndex {
+    @Autowired
+    private CourseAccessIndexConfig courseAccessIndexConfig;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<Long, CourseAccess> cache;
+
+    // Incremented before every change is applied to the cached users
+    private final AtomicLong changeVersion = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (courseAccessIndexConfig.isEnabled()) {
+            cache = Caffeine.newBuilder()
+                    .maximumSize(courseAccessIndexConfig.getMaximumSize())
+                    .expireAfterWrite(courseAccessIndexConfig.getExpireAfterWriteInSeconds(), TimeUnit.SECONDS)
+                    .recordStats()
+                    .build();
+            // Publishes cache.gets (hit/miss), cache.evictions and cache.size under the name below
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "courseAccess");
+        }
+    }
+
+    // Null when the index cannot answer, which leaves the check to the database
+    public Boolean isEnrolled(Long appUserId, Long courseId) {
+        if (cache == null || !isIndexable(courseId)) {
+            return null;
+        }
+        return this.get(appUserId).enrolled.contains(courseId.intValue());
+    }
+
+    // Null when the index cannot answer, which leaves the check to the database
+    public Boolean isCreatedBy(Long appUserId, Long courseId) {
+        if (cache == null || !isIndexable(courseId)) {
+            return null;
+        }
+        return this.get(appUserId).created.contains(courseId.intValue());
+    }
+
+    private CourseAccess get(Long appUserId) {
+        CourseAccess courseAccess = cache.getIfPresent(appUserId);
+        if (courseAccess != null) {
+            return courseAccess;
+        }
+        long version = changeVersion.get();
+        CourseAccess loaded = this.load(appUserId);
+        // A change applied after this point finds the user in the cache, and updates it like any other cached user
+        CourseAccess cached = cache.asMap().compute(appUserId,
+                (id, current) -> current != null ? current : changeVersion.get() == version ? loaded : null);
+        return cached != null ? cached : loaded;
+    }
+
+    private CourseAccess load(Long appUserId) {
+        return new CourseAccess(
+                toBitmap(courseRepository.findEnrolledCourseIds(appUserId)),
+                toBitmap(courseRepository.findCreatedCourseIds(appUserId))
+        );
+    }
+
+    // Runs without a transaction too, for changes saved outside of one
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentsChanged(EnrollmentsChangedEvent event) {
+        if (cache == null) {
+            return;
+        }
+        changeVersion.incrementAndGet();
+        if (event.getEnrolledCourseIds() != null) {
+            RoaringBitmap enrolled = toBitmap(event.getEnrolledCourseIds());
+            cache.asMap().computeIfPresent(event.getAppUserId(), (appUserId, courseAccess) -> new CourseAccess(enrolled, courseAccess.created));
+        } else {
+            cache.invalidate(event.getAppUserId());
+        }
+    }
+
+    // The creator of a course can change on update, so it is also removed from the previous creator
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseSaved(CourseSavedEvent event) {
+        if (cache == null || !isIndexable(event.getCourseId())) {
+            return;
+        }
+        changeVersion.incrementAndGet();
+        int courseId = event.getCourseId().intValue();
+        if (event.getPreviousCreatedById() == null) {
+            // Any indexed user may have created it
+            for (Long appUserId : cache.asMap().keySet()) {
+                if (!appUserId.equals(event.getCreatedById())) {
+                    this.updateCreated(appUserId, courseId, false);
+                }
+            }
+        } else if (!event.getPreviousCreatedById().equals(event.getCreatedById())) {
+            this.updateCreated(event.getPreviousCreatedById(), courseId, false);
+        }
+        if (event.getCreatedById() != null) {
+            this.updateCreated(event.getCreatedById(), courseId, true);
+        }
+    }
+
+    // Enrollments of a course block its delete, and ids are never reused, so only its creator is updated
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseDeleted(CourseDeletedEvent event) {
+        if (cache == null || !isIndexable(event.getCourseId()) || event.getCreatedById() == null) {
+            return;
+        }
+        changeVersion.incrementAndGet();
+        this.updateCreated(event.getCreatedById(), event.getCourseId().intValue(), false);
+    }
+
+    private void updateCreated(Long appUserId, int courseId, boolean createdBy) {
+        cache.asMap().computeIfPresent(appUserId, (id, courseAccess) -> {
+            if (courseAccess.created.contains(courseId) == createdBy) {
+                return courseAccess;
+            }
+            RoaringBitmap created = courseAccess.created.clone();
+            if (createdBy) {
+                created.add(courseId);
+            } else {
+                created.remove(courseId);
+            }
+            created.runOptimize();
+            return new CourseAccess(courseAccess.enrolled, created);
+        });
+    }
+
+    // Bitmaps hold 32-bit values, larger ids are always checked against the database
+    private static boolean isIndexable(Long courseId) {
+        return courseId != null && courseId >= 0 && courseId <= Integer.MAX_VALUE;
+    }
+
+    private static RoaringBitmap toBitmap(Collection<Long> courseIds) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (Long courseId : courseIds) {
+            if (isIndexable(courseId)) {
+                bitmap.add(courseId.intValue());
+            }
+        }
+        bitmap.runOptimize();
+        return bitmap;
+    }
+
+    @AllArgsConstructor
+    private static class CourseAccess {
+        private final RoaringBitmap enrolled;
+
+        private final RoaringBitmap created;
+    }
+}
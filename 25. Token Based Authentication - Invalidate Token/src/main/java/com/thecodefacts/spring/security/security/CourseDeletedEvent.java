@@ -0,0 +1,13 @@
+package com.thecodefacts.spring.security.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published when a course is deleted, with the id of the user who created it
+@Getter
+@AllArgsConstructor
+public class CourseDeletedEvent {
+    private final Long courseId;
+
+    private final Long createdById;
+}
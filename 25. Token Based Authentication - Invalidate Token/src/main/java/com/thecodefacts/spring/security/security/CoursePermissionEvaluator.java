@@ -1,16 +1,13 @@
 package com.thecodefacts.spring.security.security;
 
-import com.thecodefacts.spring.security.domain.AppUser;
 import com.thecodefacts.spring.security.domain.Course;
 import com.thecodefacts.spring.security.enums.PermissionEnum;
-import com.thecodefacts.spring.security.repo.AppUserRepository;
 import com.thecodefacts.spring.security.repo.CourseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
-import java.util.Optional;
 
 @Component
 public class CoursePermissionEvaluator implements PermissionEvaluatorStrategy<Course> {
@@ -18,7 +15,7 @@ public class CoursePermissionEvaluator implements PermissionEvaluatorStrategy<Co
     private CourseRepository courseRepository;
 
     @Autowired
-    private AppUserRepository appUserRepository;
+    private CourseAccessIndex courseAccessIndex;
 
     @Override
     public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
@@ -38,13 +35,20 @@ public class CoursePermissionEvaluator implements PermissionEvaluatorStrategy<Co
         return false;
     }
 
+    // Answered from the CourseAccessIndex, or with a single existence query, the course itself is never loaded
     @Override
     public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType, Object permission) {
         if (targetId != null) {
             Long courseId = (Long) targetId;
-            Optional<Course> course = courseRepository.findById(courseId);
-            if (course.isPresent()) {
-                return this.hasPermission(authentication, course.get(), permission);
+            PermissionEnum permissionEnum = PermissionEnum.valueOf((String) permission);
+
+            switch(permissionEnum) {
+                case UPDATE_COURSE:
+                    return this.isCreatedBy(authentication, courseId);
+                case PLAY_COURSE:
+                    return this.isEnrolledStudent(authentication, courseId);
+                default:
+                    return false;
             }
         }
         return false;
@@ -55,16 +59,32 @@ public class CoursePermissionEvaluator implements PermissionEvaluatorStrategy<Co
         return course.getCreatedBy().getUsername().equalsIgnoreCase(authentication.getName());
     }
 
+    // Check if the course with the requested id is created by the authenticated user.
+    private boolean isCreatedBy(Authentication authentication, Long courseId) {
+        Long appUserId = this.getAppUserId(authentication);
+        if (appUserId == null) {
+            return false;
+        }
+        Boolean createdBy = courseAccessIndex.isCreatedBy(appUserId, courseId);
+        return createdBy != null ? createdBy : courseRepository.countCreatedBy(appUserId, courseId) > 0;
+    }
+
     // Check if the requested course is enrolled by the authenticated user.
     private boolean isEnrolledStudent(Authentication authentication, Long courseId) {
-        Optional<AppUser> student = appUserRepository.findByUsername(authentication.getName());
-        if (student.isPresent()) {
-            return student.get()
-                    .getEnrolledCourses()
-                    .stream()
-                    .anyMatch(course -> course.getId().equals(courseId));
+        Long appUserId = this.getAppUserId(authentication);
+        if (appUserId == null) {
+            return false;
         }
-        return false;
+        Boolean enrolled = courseAccessIndex.isEnrolled(appUserId, courseId);
+        return enrolled != null ? enrolled : courseRepository.countEnrollments(appUserId, courseId) > 0;
+    }
+
+    // Only an AppPrincipal carries the user id, any other principal is denied
+    private Long getAppUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof AppPrincipal) {
+            return ((AppPrincipal) authentication.getPrincipal()).getId();
+        }
+        return null;
     }
 
     @Override
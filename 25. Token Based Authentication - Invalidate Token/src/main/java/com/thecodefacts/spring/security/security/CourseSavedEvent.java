@@ -0,0 +1,16 @@
+package com.thecodefacts.spring.security.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published when a course is created or updated, with the id of the user who created it
+@Getter
+@AllArgsConstructor
+public class CourseSavedEvent {
+    private final Long courseId;
+
+    private final Long createdById;
+
+    // Creator before the save, or null when it had none or it is not known, e.g. for a detached course
+    private final Long previousCreatedById;
+}
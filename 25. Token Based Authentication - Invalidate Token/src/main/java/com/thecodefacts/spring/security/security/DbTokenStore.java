@@ -0,0 +1,61 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.domain.AppToken;
+import com.thecodefacts.spring.security.domain.AppUser;
+import com.thecodefacts.spring.security.repo.AppTokenRepository;
+import com.thecodefacts.spring.security.repo.TokenRoleView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+// Reads and writes every token straight from and to the app_token table
+@Component
+@ConditionalOnProperty(name = "token.store.mode", havingValue = "db", matchIfMissing = true)
+public class DbTokenStore implements TokenStore {
+    @Autowired
+    private AppTokenRepository appTokenRepository;
+
+    @Autowired
+    private UserDetailsMapper userDetailsMapper;
+
+    @Autowired
+    private SlidingTokenExpiry slidingTokenExpiry;
+
+    @Override
+    public void save(AppUser appUser, String tokenHash, Date tokenExpiryTime) {
+        appTokenRepository.save(AppToken.builder()
+                .tokenHash(tokenHash)
+                .appUser(appUser)
+                .tokenExpiryTime(tokenExpiryTime)
+                .build());
+    }
+
+    @Override
+    public Optional<UserDetails> find(String tokenHash) {
+        // Primary key lookup on the token digest, joined to the user and its roles in the same statement
+        List<TokenRoleView> tokenRoles = appTokenRepository.findRolesByTokenHash(tokenHash, new Date());
+        if (tokenRoles.isEmpty()) {
+            return Optional.empty();
+        }
+        slidingTokenExpiry.extend(tokenHash, tokenRoles.get(0).getTokenExpiryTime().getTime());
+        // The password hash is not needed once the token is verified, so it is not kept in the principal
+        return Optional.of(userDetailsMapper.toUserDetails(tokenRoles).withPassword(""));
+    }
+
+    @Override
+    @Transactional
+    public void delete(String username, String tokenHash) {
+        appTokenRepository.deleteByTokenHashAndUsername(tokenHash, username);
+    }
+
+    @Override
+    public void deleteAll() {
+        appTokenRepository.deleteAllInBatch();
+    }
+}
@@ -0,0 +1,15 @@
+package com.thecodefacts.spring.security.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+// Published when a user is saved, with its enrolled course ids, or none when the enrolled courses were never loaded
+@Getter
+@AllArgsConstructor
+public class EnrollmentsChangedEvent {
+    private final Long appUserId;
+
+    private final Set<Long> enrolledCourseIds;
+}
@@ -0,0 +1,302 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.config.TokenStoreConfig;
+import com.thecodefacts.spring.security.domain.AppToken;
+import com.thecodefacts.spring.security.domain.AppUser;
+import com.thecodefacts.spring.security.repo.AppTokenRepository;
+import com.thecodefacts.spring.security.repo.AppUserRepository;
+import com.thecodefacts.spring.security.repo.UserRoleView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/*
+ * Keeps the active tokens with a snapshot of their user in memory, so verifying a token does no database I/O.
+ * Issued and deleted tokens are written behind to app_token in batches, and loaded back from it at startup.
+ * Tokens are only visible to the node that issued them, so this mode suits a single node deployment.
+ * The user snapshots are replaced once a change to the user or to a role commits, and a deleted user loses its tokens.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "token.store.mode", havingValue = "memory")
+public class InMemoryTokenStore implements TokenStore {
+    @Autowired
+    private AppTokenRepository appTokenRepository;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private UserDetailsMapper userDetailsMapper;
+
+    @Autowired
+    private TokenStoreConfig tokenStoreConfig;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SlidingTokenExpiry slidingTokenExpiry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<Map<String, StoredToken>> shards = new ArrayList<>();
+
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    // Writes of a failed flush, retried first by the next flush. Only used by flush(), which is synchronized.
+    private Map<String, PendingWrite> retryBatch;
+
+    private int retryBatchAttempts;
+
+    private Counter failedFlushes;
+
+    private Counter droppedWrites;
+
+    @PostConstruct
+    public void init() {
+        failedFlushes = Counter.builder("tokens.write_behind.failures")
+                .description("Number of write-behind batches that failed to be written")
+                .register(meterRegistry);
+        droppedWrites = Counter.builder("tokens.write_behind.dropped")
+                .description("Number of token writes dropped after failing on their own")
+                .register(meterRegistry);
+
+        for (int i = 0; i < tokenStoreConfig.getShards(); i++) {
+            shards.add(new ConcurrentHashMap<>());
+        }
+
+        List<AppToken> appTokens = appTokenRepository.findByTokenExpiryTimeGreaterThan(new Date());
+        for (AppToken appToken : appTokens) {
+            this.getShard(appToken.getTokenHash()).put(appToken.getTokenHash(),
+                    new StoredToken(this.snapshot(appToken.getAppUser()), appToken.getAppUser().getId(),
+                            appToken.getTokenExpiryTime().getTime()));
+        }
+        log.info("Recovered {} active tokens from the database", appTokens.size());
+    }
+
+    @Override
+    public void save(AppUser appUser, String tokenHash, Date tokenExpiryTime) {
+        StoredToken storedToken = new StoredToken(this.snapshot(appUser), appUser.getId(), tokenExpiryTime.getTime());
+        this.getShard(tokenHash).put(tokenHash, storedToken);
+        pendingWrites.add(new PendingWrite(tokenHash, storedToken));
+    }
+
+    @Override
+    public Optional<UserDetails> find(String tokenHash) {
+        Map<String, StoredToken> shard = this.getShard(tokenHash);
+        StoredToken storedToken = shard.get(tokenHash);
+        if (storedToken == null) {
+            return Optional.empty();
+        }
+        if (storedToken.expiryTimeMillis <= System.currentTimeMillis()) {
+            shard.remove(tokenHash, storedToken);
+            return Optional.empty();
+        }
+        // Also picked up by the write-behind insert if the token was not flushed yet
+        storedToken.expiryTimeMillis = slidingTokenExpiry.extend(tokenHash, storedToken.expiryTimeMillis);
+        return Optional.of(storedToken.userDetails);
+    }
+
+    @Override
+    public void delete(String username, String tokenHash) {
+        Map<String, StoredToken> shard = this.getShard(tokenHash);
+        StoredToken storedToken = shard.get(tokenHash);
+        if (storedToken != null && storedToken.userDetails.getUsername().equals(username)
+                && shard.remove(tokenHash, storedToken)) {
+            // A null token is written as a delete
+            pendingWrites.add(new PendingWrite(tokenHash, null));
+        }
+    }
+
+    // Runs after the RolePermissionMatrix was refreshed, see its @Order
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDetailsChanged(UserDetailsChangedEvent event) {
+        if (event.getUsername() == null) {
+            // Only the permissions of the roles changed, the roles of every user are the same
+            shards.forEach(shard -> shard.values().forEach(storedToken ->
+                    storedToken.userDetails = userDetailsMapper.withCurrentPermissions(storedToken.userDetails)));
+            return;
+        }
+
+        List<UserRoleView> userRoles = appUserRepository.findRolesByUsername(event.getUsername());
+        if (userRoles.isEmpty()) {
+            this.deleteAll(event.getUsername());
+            return;
+        }
+        AppPrincipal userDetails = userDetailsMapper.toUserDetails(userRoles).withPassword("");
+        shards.forEach(shard -> shard.values().forEach(storedToken -> {
+            if (storedToken.appUserId.equals(userDetails.getId())) {
+                storedToken.userDetails = userDetails;
+            }
+        }));
+    }
+
+    private void deleteAll(String username) {
+        shards.forEach(shard -> shard.entrySet().removeIf(entry -> {
+            if (!entry.getValue().userDetails.getUsername().equals(username)) {
+                return false;
+            }
+            pendingWrites.add(new PendingWrite(entry.getKey(), null));
+            return true;
+        }));
+    }
+
+    @Override
+    public synchronized void deleteAll() {
+        shards.forEach(Map::clear);
+        pendingWrites.clear();
+        retryBatch = null;
+        retryBatchAttempts = 0;
+        appTokenRepository.deleteAllInBatch();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.flush();
+    }
+
+    @Scheduled(fixedDelayString = "${token.store.write-behind-interval-in-millis:1000}")
+    public synchronized void flush() {
+        Map<String, PendingWrite> batch;
+        do {
+            batch = retryBatch != null ? retryBatch : new LinkedHashMap<>();
+            retryBatch = null;
+            PendingWrite pendingWrite;
+            while (batch.size() < tokenStoreConfig.getWriteBehindBatchSize() && (pendingWrite = pendingWrites.poll()) != null) {
+                // Only the last write of a token is kept, so a token issued and deleted before the flush is only deleted
+                batch.remove(pendingWrite.tokenHash);
+                batch.put(pendingWrite.tokenHash, pendingWrite);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                this.write(batch.values());
+                retryBatchAttempts = 0;
+            } catch (RuntimeException e) {
+                failedFlushes.increment();
+                if (++retryBatchAttempts <= tokenStoreConfig.getWriteBehindMaxRetries()) {
+                    // Kept in memory and retried on the next flush
+                    retryBatch = batch;
+                    log.error("Unable to write {} tokens to the database, attempt {}", batch.size(), retryBatchAttempts, e);
+                    return;
+                }
+                // The batch keeps failing, most likely because of a single token, e.g. one of a deleted user
+                retryBatchAttempts = 0;
+                if (!this.writeEach(batch)) {
+                    return;
+                }
+            }
+        } while (batch.size() >= tokenStoreConfig.getWriteBehindBatchSize());
+    }
+
+    @Scheduled(fixedDelayString = "${token.store.eviction-interval-in-millis:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        shards.forEach(shard -> shard.values().removeIf(storedToken -> storedToken.expiryTimeMillis <= now));
+    }
+
+    // Writes every token of the batch on its own and drops the ones that fail. Returns false, and keeps the batch
+    // for the next flush, when not a single token could be written, as the database is then most likely unavailable.
+    private boolean writeEach(Map<String, PendingWrite> batch) {
+        List<PendingWrite> failedWrites = new ArrayList<>();
+        for (PendingWrite pendingWrite : batch.values()) {
+            try {
+                this.write(Collections.singletonList(pendingWrite));
+            } catch (RuntimeException e) {
+                failedWrites.add(pendingWrite);
+            }
+        }
+        if (failedWrites.size() == batch.size() && batch.size() > 1) {
+            retryBatch = batch;
+            log.error("Unable to write any of {} tokens to the database", batch.size());
+            return false;
+        }
+        for (PendingWrite failedWrite : failedWrites) {
+            droppedWrites.increment();
+            if (failedWrite.storedToken != null) {
+                log.error("Dropped the write of a token of user {} after {} failed attempts",
+                        failedWrite.storedToken.appUserId, tokenStoreConfig.getWriteBehindMaxRetries() + 1);
+            } else {
+                log.error("Dropped the delete of a token after {} failed attempts", tokenStoreConfig.getWriteBehindMaxRetries() + 1);
+            }
+        }
+        return true;
+    }
+
+    private void write(Iterable<PendingWrite> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<String> deletedTokenHashes = new ArrayList<>();
+            List<AppToken> savedTokens = new ArrayList<>();
+            for (PendingWrite pendingWrite : batch) {
+                if (pendingWrite.storedToken == null) {
+                    deletedTokenHashes.add(pendingWrite.tokenHash);
+                } else {
+                    savedTokens.add(AppToken.builder()
+                            .tokenHash(pendingWrite.tokenHash)
+                            // Reference only, the user is not loaded
+                            .appUser(appUserRepository.getReferenceById(pendingWrite.storedToken.appUserId))
+                            .tokenExpiryTime(new Date(pendingWrite.storedToken.expiryTimeMillis))
+                            .build());
+                }
+            }
+
+            if (!deletedTokenHashes.isEmpty()) {
+                appTokenRepository.deleteAllByIdInBatch(deletedTokenHashes);
+            }
+            // New tokens are inserted without a select first, see AppToken.isNew()
+            appTokenRepository.saveAll(savedTokens);
+        });
+    }
+
+    private AppPrincipal snapshot(AppUser appUser) {
+        // The password hash is not needed to verify a token, so it is not kept in memory
+        return userDetailsMapper.toUserDetails(appUser).withPassword("");
+    }
+
+    private Map<String, StoredToken> getShard(String tokenHash) {
+        return shards.get((tokenHash.hashCode() & Integer.MAX_VALUE) % shards.size());
+    }
+
+    @AllArgsConstructor
+    private static class StoredToken {
+        // Replaced when the user or one of its roles changes
+        private volatile AppPrincipal userDetails;
+
+        private final Long appUserId;
+
+        private volatile long expiryTimeMillis;
+    }
+
+    @AllArgsConstructor
+    private static class PendingWrite {
+        private final String tokenHash;
+
+        // Null for a deleted token
+        private final StoredToken storedToken;
+    }
+}
@@ -0,0 +1,144 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.config.KnownUsernamesConfig;
+import com.thecodefacts.spring.security.repo.AppUserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/*
+ * Bloom filter over the usernames in app_user, so a login for a username that was never created is rejected
+ * without a database round trip. Usernames are added as soon as a user is saved, and the filter is rebuilt
+ * periodically to pick up users created on other nodes and to drop deleted ones.
+ * Usernames are normalised like the case and accent insensitive comparison of the default MySQL collation,
+ * so any username the database would match is also known to the filter.
+ */
+@Slf4j
+@Component
+public class KnownUsernameFilter {
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private KnownUsernamesConfig knownUsernamesConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter rejectedUsernames;
+
+    private volatile BloomFilter knownUsernames;
+
+    // Guards the fields below and the swap of knownUsernames, but never the rebuild query
+    private final Object addLock = new Object();
+
+    // Filter being rebuilt, which also receives the usernames added in the meantime
+    private BloomFilter rebuiltUsernames;
+
+    // Usernames added since the previous rebuild started. Their users may not be committed yet when the next rebuild
+    // queries app_user, so they are carried over into the rebuilt filter.
+    private Set<String> recentlyAddedUsernames = new HashSet<>();
+
+    @PostConstruct
+    public void init() {
+        rejectedUsernames = Counter.builder("users.unknown.rejected")
+                .description("Number of logins rejected by the known username filter without a database query")
+                .register(meterRegistry);
+        this.rebuild();
+    }
+
+    public boolean mightExist(String username) {
+        BloomFilter bloomFilter = knownUsernames;
+        if (bloomFilter == null || username == null || bloomFilter.mightContain(normalise(username))) {
+            return true;
+        }
+        rejectedUsernames.increment();
+        return false;
+    }
+
+    public void add(String username) {
+        if (username == null) {
+            return;
+        }
+        String normalisedUsername = normalise(username);
+        synchronized (addLock) {
+            BloomFilter bloomFilter = knownUsernames;
+            if (bloomFilter == null) {
+                return;
+            }
+            bloomFilter.put(normalisedUsername);
+            if (rebuiltUsernames != null) {
+                rebuiltUsernames.put(normalisedUsername);
+            }
+            recentlyAddedUsernames.add(normalisedUsername);
+        }
+    }
+
+    // Not after commit, a user whose creation is rolled back only costs a false positive until the next rebuild.
+    // The rebuild query does not see the user before its commit either, see recentlyAddedUsernames.
+    @EventListener
+    public void onUserDetailsChanged(UserDetailsChangedEvent event) {
+        this.add(event.getUsername());
+    }
+
+    @Scheduled(fixedDelayString = "${user.known-usernames.rebuild-interval-in-millis:60000}")
+    public synchronized void rebuild() {
+        if (!knownUsernamesConfig.isFilterEnabled()) {
+            knownUsernames = null;
+            return;
+        }
+        BloomFilter rebuilt = new BloomFilter(knownUsernamesConfig.getExpectedEntries(), FALSE_POSITIVE_PROBABILITY);
+        Set<String> carriedUsernames;
+        synchronized (addLock) {
+            rebuiltUsernames = rebuilt;
+            carriedUsernames = recentlyAddedUsernames;
+            recentlyAddedUsernames = new HashSet<>();
+        }
+        try {
+            List<String> usernames = appUserRepository.findAllUsernames();
+            if (usernames.size() > knownUsernamesConfig.getExpectedEntries()) {
+                log.warn("{} usernames exceed the {} expected entries, the Bloom filter false positive rate will increase",
+                        usernames.size(), knownUsernamesConfig.getExpectedEntries());
+            }
+            usernames.forEach(username -> rebuilt.put(normalise(username)));
+            carriedUsernames.forEach(rebuilt::put);
+            synchronized (addLock) {
+                knownUsernames = rebuilt;
+            }
+        } catch (RuntimeException e) {
+            // Carried over to the next rebuild instead
+            synchronized (addLock) {
+                recentlyAddedUsernames.addAll(carriedUsernames);
+            }
+            throw e;
+        } finally {
+            synchronized (addLock) {
+                rebuiltUsernames = null;
+            }
+        }
+    }
+
+    private static String normalise(String username) {
+        String decomposed = Normalizer.normalize(username, Normalizer.Form.NFD);
+        int end = decomposed.length();
+        while (end > 0 && decomposed.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return decomposed.substring(0, end)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
+}
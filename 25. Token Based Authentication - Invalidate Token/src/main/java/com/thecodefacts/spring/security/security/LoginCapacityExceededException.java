@@ -0,0 +1,8 @@
+package com.thecodefacts.spring.security.security;
+
+// Not an AuthenticationException, the credentials were not checked and the client should retry later
+public class LoginCapacityExceededException extends RuntimeException {
+    public LoginCapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,78 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.enums.PermissionEnum;
+import com.thecodefacts.spring.security.enums.RoleEnum;
+import com.thecodefacts.spring.security.repo.AppRoleRepository;
+import com.thecodefacts.spring.security.repo.RolePermissionView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Permissions granted by each role, read from app_role_to_permission into an immutable snapshot.
+ * The snapshot is rebuilt and swapped as a whole once a change to a role commits, so the authorities of a user
+ * are resolved as the union of the permission sets of its roles, without reading the roles from the database.
+ */
+@Slf4j
+@Component
+public class RolePermissionMatrix {
+    @Autowired
+    private AppRoleRepository appRoleRepository;
+
+    private volatile Map<RoleEnum, Set<PermissionEnum>> permissionsByRole = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        this.refresh();
+    }
+
+    // Runs before the user cache is evicted, so a user loaded again right after is given the new permissions
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDetailsChanged(UserDetailsChangedEvent event) {
+        if (event.getUsername() == null) {
+            this.refresh();
+        }
+    }
+
+    public synchronized void refresh() {
+        Map<RoleEnum, Set<PermissionEnum>> matrix = new EnumMap<>(RoleEnum.class);
+        for (RoleEnum role : RoleEnum.values()) {
+            matrix.put(role, EnumSet.noneOf(PermissionEnum.class));
+        }
+        for (RolePermissionView rolePermission : appRoleRepository.findRolePermissions()) {
+            if (rolePermission.getPermission() != null) {
+                matrix.get(rolePermission.getRole()).add(rolePermission.getPermission());
+            }
+        }
+        matrix.replaceAll((role, permissions) -> Collections.unmodifiableSet(permissions));
+        permissionsByRole = Collections.unmodifiableMap(matrix);
+        log.debug("Loaded role permissions {}", permissionsByRole);
+    }
+
+    public Set<PermissionEnum> getPermissions(RoleEnum role) {
+        return permissionsByRole.getOrDefault(role, Collections.emptySet());
+    }
+
+    public Set<PermissionEnum> getPermissions(Iterable<RoleEnum> roles) {
+        // Read once, so all the roles are resolved against the same snapshot
+        Map<RoleEnum, Set<PermissionEnum>> matrix = permissionsByRole;
+        Set<PermissionEnum> permissions = EnumSet.noneOf(PermissionEnum.class);
+        for (RoleEnum role : roles) {
+            if (role != null) {
+                permissions.addAll(matrix.getOrDefault(role, Collections.emptySet()));
+            }
+        }
+        return permissions;
+    }
+}
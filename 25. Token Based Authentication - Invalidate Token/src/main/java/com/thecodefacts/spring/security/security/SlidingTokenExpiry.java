@@ -0,0 +1,100 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.config.TokenStoreConfig;
+import com.thecodefacts.spring.security.repo.AppTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Idle timeout for tokens: every use pushes the token expiry to now + idle timeout.
+ * A token is only extended once its expiry is more than the extension interval behind, and the extended expiries
+ * are kept in memory and written by a periodic flush, with one UPDATE per expiry bucket instead of one per request.
+ */
+@Slf4j
+@Component
+public class SlidingTokenExpiry {
+    private static final int MAXIMUM_TOKENS_PER_UPDATE = 500;
+
+    @Autowired
+    private AppTokenRepository appTokenRepository;
+
+    @Autowired
+    private TokenStoreConfig tokenStoreConfig;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<String, Long> pendingExpiries = new ConcurrentHashMap<>();
+
+    public Date getInitialExpiryTime() {
+        return new Date(System.currentTimeMillis() + tokenStoreConfig.getIdleTimeoutInSeconds() * 1000L);
+    }
+
+    // Returns the expiry of the token after this use, which is only later than the given one when the token was extended
+    public long extend(String tokenHash, long expiryTimeMillis) {
+        if (!tokenStoreConfig.isSlidingExpiryEnabled()) {
+            return expiryTimeMillis;
+        }
+        long extendedExpiryTimeMillis = System.currentTimeMillis() + tokenStoreConfig.getIdleTimeoutInSeconds() * 1000L;
+        if (extendedExpiryTimeMillis - expiryTimeMillis < tokenStoreConfig.getExpiryExtensionIntervalInSeconds() * 1000L) {
+            return expiryTimeMillis;
+        }
+        pendingExpiries.merge(tokenHash, extendedExpiryTimeMillis, Math::max);
+        return extendedExpiryTimeMillis;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.flush();
+    }
+
+    @Scheduled(fixedDelayString = "${token.store.expiry-flush-interval-in-millis:10000}")
+    public synchronized void flush() {
+        if (pendingExpiries.isEmpty()) {
+            return;
+        }
+
+        // Expiries are rounded up to the extension interval, so the tokens used within the same interval share one UPDATE
+        long bucketMillis = Math.max(tokenStoreConfig.getExpiryExtensionIntervalInSeconds() * 1000L, 1000L);
+        Map<String, Long> flushedExpiries = new ConcurrentHashMap<>();
+        Map<Long, List<String>> tokenHashesByBucket = new TreeMap<>();
+        for (String tokenHash : pendingExpiries.keySet()) {
+            Long expiryTimeMillis = pendingExpiries.remove(tokenHash);
+            if (expiryTimeMillis != null) {
+                flushedExpiries.put(tokenHash, expiryTimeMillis);
+                long bucket = (expiryTimeMillis + bucketMillis - 1) / bucketMillis * bucketMillis;
+                tokenHashesByBucket.computeIfAbsent(bucket, key -> new ArrayList<>()).add(tokenHash);
+            }
+        }
+
+        try {
+            int updated = transactionTemplate.execute(status -> {
+                int rows = 0;
+                for (Map.Entry<Long, List<String>> bucket : tokenHashesByBucket.entrySet()) {
+                    List<String> tokenHashes = bucket.getValue();
+                    for (int from = 0; from < tokenHashes.size(); from += MAXIMUM_TOKENS_PER_UPDATE) {
+                        List<String> chunk = tokenHashes.subList(from, Math.min(from + MAXIMUM_TOKENS_PER_UPDATE, tokenHashes.size()));
+                        rows += appTokenRepository.extendTokenExpiryTime(chunk, new Date(bucket.getKey()));
+                    }
+                }
+                return rows;
+            });
+            log.debug("Extended the expiry of {} tokens with {} expiry buckets", updated, tokenHashesByBucket.size());
+        } catch (RuntimeException e) {
+            // Retried on the next flush, unless a later use already extended the token further
+            flushedExpiries.forEach((tokenHash, expiryTimeMillis) -> pendingExpiries.merge(tokenHash, expiryTimeMillis, Math::max));
+            log.error("Unable to extend the expiry of {} tokens", flushedExpiries.size(), e);
+        }
+    }
+}
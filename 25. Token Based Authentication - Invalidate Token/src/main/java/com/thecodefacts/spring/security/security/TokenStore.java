@@ -0,0 +1,20 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.domain.AppUser;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+import java.util.Optional;
+
+// Keeps the issued opaque tokens by their digest, selected with the token.store.mode property
+public interface TokenStore {
+    void save(AppUser appUser, String tokenHash, Date tokenExpiryTime);
+
+    // Returns the user of the token, if the token exists and has not expired
+    Optional<UserDetails> find(String tokenHash);
+
+    // Only deletes the token if it belongs to the given user
+    void delete(String username, String tokenHash);
+
+    void deleteAll();
+}
@@ -0,0 +1,44 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.domain.AppRole;
+import com.thecodefacts.spring.security.domain.AppUser;
+import com.thecodefacts.spring.security.enums.RoleEnum;
+import com.thecodefacts.spring.security.repo.UserRoleView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.List;
+
+// Permissions are the union of the permissions of the user roles, as held by the RolePermissionMatrix
+@Component
+public class UserDetailsMapper {
+    @Autowired
+    private RolePermissionMatrix rolePermissionMatrix;
+
+    public AppPrincipal toUserDetails(AppUser appUser) {
+        EnumSet<RoleEnum> roles = EnumSet.noneOf(RoleEnum.class);
+        for (AppRole appRole : appUser.getRoles()) {
+            roles.add(appRole.getName());
+        }
+        return new AppPrincipal(appUser.getId(), appUser.getUsername(), appUser.getPassword(), roles, rolePermissionMatrix.getPermissions(roles));
+    }
+
+    // Expects the rows of a single user, as returned by the role projections of the repositories
+    public AppPrincipal toUserDetails(List<? extends UserRoleView> userRoles) {
+        EnumSet<RoleEnum> roles = EnumSet.noneOf(RoleEnum.class);
+        for (UserRoleView userRole : userRoles) {
+            if (userRole.getRole() != null) {
+                roles.add(userRole.getRole());
+            }
+        }
+        UserRoleView userRole = userRoles.get(0);
+        return new AppPrincipal(userRole.getId(), userRole.getUsername(), userRole.getPassword(), roles, rolePermissionMatrix.getPermissions(roles));
+    }
+
+    // Same user and roles, with the permissions the roles grant now, e.g. once a role changed
+    public AppPrincipal withCurrentPermissions(AppPrincipal principal) {
+        return new AppPrincipal(principal.getId(), principal.getUsername(), principal.getPassword(), principal.getRoles(),
+                rolePermissionMatrix.getPermissions(principal.getRoles()));
+    }
+}
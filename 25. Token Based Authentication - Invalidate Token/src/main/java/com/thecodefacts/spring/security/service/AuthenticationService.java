@@ -1,20 +1,19 @@
 package com.thecodefacts.spring.security.service;
 
 import com.thecodefacts.spring.security.security.AuthenticationFacade;
+import com.thecodefacts.spring.security.security.LoginExecutor;
+import com.thecodefacts.spring.security.security.SlidingTokenExpiry;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
-import java.util.Calendar;
-import java.util.Date;
 import java.util.UUID;
 
 @Service
 public class AuthenticationService {
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private LoginExecutor loginExecutor;
 
     @Autowired
     private AuthenticationFacade authenticationFacade;
@@ -22,29 +21,27 @@ public class AuthenticationService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SlidingTokenExpiry slidingTokenExpiry;
+
     public String generateToken(String username, String password) {
         Authentication authentication = UsernamePasswordAuthenticationToken.unauthenticated(username, password);
-        authentication = authenticationManager.authenticate(authentication);
+        authentication = loginExecutor.authenticate(authentication);
 
         String token = null;
         if (authentication.isAuthenticated()) {
             authenticationFacade.setAuthentication(authentication);
 
             token = UUID.randomUUID().toString();
-            userService.updateToken(authentication.getName(), token, this.getTokenExpiryTime());
+            userService.updateToken(authentication.getName(), token, slidingTokenExpiry.getInitialExpiryTime());
         }
 
         return token;
     }
 
-    private Date getTokenExpiryTime() {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(new Date());
-        calendar.add(Calendar.MINUTE, 30);
-        return calendar.getTime();
-    }
-
     public void invalidateToken() {
-        userService.deleteToken(authenticationFacade.getAuthentication().getName());
+        Authentication authentication = authenticationFacade.getAuthentication();
+        // Digest of the token used by the current request, set by TokenVerificationFilter
+        userService.deleteToken(authentication.getName(), (String) authentication.getDetails());
     }
 }
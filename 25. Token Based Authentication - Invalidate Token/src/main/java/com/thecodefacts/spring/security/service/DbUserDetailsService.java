@@ -1,53 +1,70 @@
 package com.thecodefacts.spring.security.service;
 
-import com.thecodefacts.spring.security.domain.AppRole;
-import com.thecodefacts.spring.security.domain.AppUser;
 import com.thecodefacts.spring.security.repo.AppUserRepository;
+import com.thecodefacts.spring.security.repo.UserRoleView;
+import com.thecodefacts.spring.security.security.KnownUsernameFilter;
+import com.thecodefacts.spring.security.security.TokenDigest;
+import com.thecodefacts.spring.security.security.TokenStore;
+import com.thecodefacts.spring.security.security.UserDetailsMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
-import java.util.Set;
-import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import java.util.List;
 
 @Service
 public class DbUserDetailsService implements UserDetailsService {
     @Autowired
     private AppUserRepository appUserRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TokenStore tokenStore;
+
+    @Autowired
+    private UserDetailsMapper userDetailsMapper;
+
+    @Autowired
+    private KnownUsernameFilter knownUsernameFilter;
+
+    // Only timed on a user cache miss, as the DaoAuthenticationProvider checks the cache first
+    private Timer loadTimer;
+
+    @PostConstruct
+    public void init() {
+        loadTimer = Timer.builder("user.details.load")
+                .description("Time taken to load a user and its permissions from the database")
+                .register(meterRegistry);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        AppUser appUser = appUserRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException(String.format("User %s not found", username)));
-
-        return User.builder()
-                .username(appUser.getUsername())
-                .password(appUser.getPassword())
-                .authorities(this.getPermissions(appUser.getRoles()))
-                .build();
+        // Thrown like a database miss, so the DaoAuthenticationProvider still hashes its dummy password
+        // and an unknown username takes as long to reject as a wrong password
+        if (!knownUsernameFilter.mightExist(username)) {
+            throw new UsernameNotFoundException(String.format("User %s not found", username));
+        }
+        return loadTimer.record(() -> this.loadAppUser(username));
     }
 
-    private String[] getPermissions(Set<AppRole> roles) {
-        return roles.stream()
-                .flatMap(role -> role.getPermissions().stream())
-                .map(permission -> permission.getName().name())
-                .collect(Collectors.toSet())
-                .toArray(new String[0]);
+    private UserDetails loadAppUser(String username) {
+        List<UserRoleView> userRoles = appUserRepository.findRolesByUsername(username);
+        if (userRoles.isEmpty()) {
+            throw new UsernameNotFoundException(String.format("User %s not found", username));
+        }
+        return userDetailsMapper.toUserDetails(userRoles);
     }
 
     public UserDetails loadUserByToken(String token) throws UsernameNotFoundException {
-        AppUser appUser = appUserRepository.findByTokenAndTokenExpiryTimeGreaterThan(token, new Date())
+        return tokenStore.find(TokenDigest.sha256(token))
                 .orElseThrow(() -> new BadCredentialsException("Provided token is either expired or not found"));
-
-        return User.builder()
-                .username(appUser.getUsername())
-                .password(appUser.getPassword())
-                .authorities(this.getPermissions(appUser.getRoles()))
-                .build();
     }
 }
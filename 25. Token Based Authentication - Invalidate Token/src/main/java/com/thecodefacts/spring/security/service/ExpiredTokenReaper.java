@@ -0,0 +1,86 @@
+package com.thecodefacts.spring.security.service;
+
+import com.thecodefacts.spring.security.config.TokenStoreConfig;
+import com.thecodefacts.spring.security.repo.AppTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Deletes expired tokens from app_token in chunks, each chunk in its own short transaction,
+ * so a sweep never holds locks on more than one chunk of rows at a time.
+ * Chunks are found through the token expiry index, and are spaced out by a pause to cap the delete rate.
+ * The pause holds a scheduler thread, see spring.task.scheduling.pool.size.
+ */
+@Slf4j
+@Service
+public class ExpiredTokenReaper {
+    @Autowired
+    private AppTokenRepository appTokenRepository;
+
+    @Autowired
+    private TokenStoreConfig tokenStoreConfig;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter removedTokens;
+
+    private Timer sweepTime;
+
+    @PostConstruct
+    public void init() {
+        removedTokens = Counter.builder("tokens.reaper.removed")
+                .description("Number of expired tokens deleted by the reaper")
+                .register(meterRegistry);
+        sweepTime = Timer.builder("tokens.reaper.sweep")
+                .description("Time taken by a sweep of the expired token reaper")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${token.store.reaper-interval-in-millis:300000}")
+    public void sweep() {
+        long start = System.nanoTime();
+        int removed = 0;
+        try {
+            Date currentDate = new Date();
+            PageRequest chunk = PageRequest.of(0, tokenStoreConfig.getReaperChunkSize());
+            for (int chunks = 0; chunks < tokenStoreConfig.getReaperMaximumChunksPerSweep(); chunks++) {
+                List<String> tokenHashes = appTokenRepository.findExpiredTokenHashes(currentDate, chunk);
+                if (tokenHashes.isEmpty()) {
+                    break;
+                }
+                int deleted = transactionTemplate.execute(status -> appTokenRepository.deleteExpiredByTokenHashIn(tokenHashes, currentDate));
+                removed += deleted;
+                removedTokens.increment(deleted);
+                if (tokenHashes.size() < tokenStoreConfig.getReaperChunkSize()) {
+                    break;
+                }
+                Thread.sleep(tokenStoreConfig.getReaperChunkPauseInMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // The remaining tokens are picked up by the next sweep
+            log.error("Expired token sweep failed after removing {} tokens", removed, e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            sweepTime.record(elapsed, TimeUnit.NANOSECONDS);
+            log.debug("Removed {} expired tokens in {} ms", removed, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.thecodefacts.spring.security.domain.AppUser;
 import com.thecodefacts.spring.security.enums.RoleEnum;
 import com.thecodefacts.spring.security.repo.AppRoleRepository;
 import com.thecodefacts.spring.security.repo.AppUserRepository;
+import com.thecodefacts.spring.security.security.TokenDigest;
+import com.thecodefacts.spring.security.security.TokenStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -26,6 +28,9 @@ public class UserService {
     @Autowired
     private AppRoleRepository appRoleRepository;
 
+    @Autowired
+    private TokenStore tokenStore;
+
     @PreAuthorize(Authority.LIST_STUDENTS)
     public List<AppUser> listStudents() {
         return this.listByRoleName(STUDENT);
@@ -61,16 +66,12 @@ public class UserService {
     @PreAuthorize(Authority.UPDATE_TOKEN)
     public void updateToken(String username, String token, Date tokenExpiryTime) {
         AppUser appUser = this.get(username);
-        appUser.setToken(token);
-        appUser.setTokenExpiryTime(tokenExpiryTime);
-        appUserRepository.save(appUser);
+        tokenStore.save(appUser, TokenDigest.sha256(token), tokenExpiryTime);
     }
 
+    // Deletes only the given token, so the user stays logged in on the other devices
     @PreAuthorize(Authority.DELETE_TOKEN)
-    public void deleteToken(String username) {
-        AppUser appUser = this.get(username);
-        appUser.setToken(null);
-        appUser.setTokenExpiryTime(null);
-        appUserRepository.save(appUser);
+    public void deleteToken(String username, String tokenHash) {
+        tokenStore.delete(username, tokenHash);
     }
 }
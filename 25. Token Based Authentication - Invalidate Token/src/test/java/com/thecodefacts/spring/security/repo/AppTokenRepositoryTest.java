@@ -0,0 +1,67 @@
+package com.thecodefacts.spring.security.repo;
+
+import com.thecodefacts.spring.security.domain.AppToken;
+import com.thecodefacts.spring.security.domain.AppUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class AppTokenRepositoryTest {
+    private static final String TOKEN_HASH = "k3vyY0zXxJYgq5x3bS1n0oTqR2dM9WlHfC7aUeP4sGw";
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private AppTokenRepository appTokenRepository;
+
+    @BeforeEach
+    void setUp() {
+        AppUser john = testEntityManager.persist(AppUser.builder()
+                .username("john")
+                .password("password")
+                .roles(Collections.emptySet())
+                .build());
+        testEntityManager.persist(AppUser.builder()
+                .username("jane")
+                .password("password")
+                .roles(Collections.emptySet())
+                .build());
+        testEntityManager.persist(AppToken.builder()
+                .tokenHash(TOKEN_HASH)
+                .appUser(john)
+                .tokenExpiryTime(new Date(System.currentTimeMillis() + 60_000))
+                .build());
+
+        testEntityManager.flush();
+        testEntityManager.clear();
+    }
+
+    @Test
+    void deleteByTokenHashAndUsernameDeletesTokenOfUser() {
+        assertEquals(1, appTokenRepository.deleteByTokenHashAndUsername(TOKEN_HASH, "john"));
+        assertFalse(appTokenRepository.existsById(TOKEN_HASH));
+    }
+
+    @Test
+    void deleteByTokenHashAndUsernameKeepsTokenOfOtherUser() {
+        assertEquals(0, appTokenRepository.deleteByTokenHashAndUsername(TOKEN_HASH, "jane"));
+        assertTrue(appTokenRepository.existsById(TOKEN_HASH));
+    }
+
+    @Test
+    void deleteByTokenHashAndUsernameIgnoresUnknownUser() {
+        assertEquals(0, appTokenRepository.deleteByTokenHashAndUsername(TOKEN_HASH, "unknown"));
+        assertTrue(appTokenRepository.existsById(TOKEN_HASH));
+    }
+}
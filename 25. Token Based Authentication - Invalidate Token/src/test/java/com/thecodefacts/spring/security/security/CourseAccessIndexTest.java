@@ -0,0 +1,152 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.config.CourseAccessIndexConfig;
+import com.thecodefacts.spring.security.repo.CourseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class CourseAccessIndexTest {
+    private static final Long JOHN_ID = 1L;
+
+    private static final Long JANE_ID = 2L;
+
+    private CourseRepository courseRepository;
+
+    private CourseAccessIndexConfig courseAccessIndexConfig;
+
+    private CourseAccessIndex courseAccessIndex;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository = mock(CourseRepository.class);
+        // John created course 10 and is enrolled in course 20, Jane has no courses
+        when(courseRepository.findCreatedCourseIds(JOHN_ID)).thenReturn(Collections.singletonList(10L));
+        when(courseRepository.findEnrolledCourseIds(JOHN_ID)).thenReturn(Collections.singletonList(20L));
+        when(courseRepository.findCreatedCourseIds(JANE_ID)).thenReturn(Collections.emptyList());
+        when(courseRepository.findEnrolledCourseIds(JANE_ID)).thenReturn(Collections.emptyList());
+
+        courseAccessIndexConfig = new CourseAccessIndexConfig();
+        courseAccessIndexConfig.setEnabled(true);
+
+        courseAccessIndex = new CourseAccessIndex();
+        setField(courseAccessIndex, "courseAccessIndexConfig", courseAccessIndexConfig);
+        setField(courseAccessIndex, "courseRepository", courseRepository);
+        setField(courseAccessIndex, "meterRegistry", new SimpleMeterRegistry());
+        courseAccessIndex.init();
+    }
+
+    @Test
+    void loadsUserOnce() {
+        assertEquals(Boolean.TRUE, courseAccessIndex.isCreatedBy(JOHN_ID, 10L));
+        assertEquals(Boolean.FALSE, courseAccessIndex.isCreatedBy(JOHN_ID, 20L));
+        assertEquals(Boolean.TRUE, courseAccessIndex.isEnrolled(JOHN_ID, 20L));
+        assertEquals(Boolean.FALSE, courseAccessIndex.isEnrolled(JOHN_ID, 10L));
+
+        verify(courseRepository, times(1)).findCreatedCourseIds(JOHN_ID);
+        verify(courseRepository, times(1)).findEnrolledCourseIds(JOHN_ID);
+    }
+
+    @Test
+    void leavesCheckToDatabaseWhenDisabled() {
+        courseAccessIndexConfig.setEnabled(false);
+        CourseAccessIndex disabledIndex = new CourseAccessIndex();
+        setField(disabledIndex, "courseAccessIndexConfig", courseAccessIndexConfig);
+        disabledIndex.init();
+
+        assertNull(disabledIndex.isCreatedBy(JOHN_ID, 10L));
+        assertNull(disabledIndex.isEnrolled(JOHN_ID, 20L));
+    }
+
+    @Test
+    void leavesCheckToDatabaseForIdsOutOfRange() {
+        assertNull(courseAccessIndex.isCreatedBy(JOHN_ID, Integer.MAX_VALUE + 1L));
+        assertNull(courseAccessIndex.isEnrolled(JOHN_ID, -1L));
+    }
+
+    @Test
+    void movesCourseToItsNewCreator() {
+        courseAccessIndex.isCreatedBy(JOHN_ID, 10L);
+        courseAccessIndex.isCreatedBy(JANE_ID, 10L);
+
+        courseAccessIndex.onCourseSaved(new CourseSavedEvent(10L, JANE_ID, JOHN_ID));
+
+        assertEquals(Boolean.FALSE, courseAccessIndex.isCreatedBy(JOHN_ID, 10L));
+        assertEquals(Boolean.TRUE, courseAccessIndex.isCreatedBy(JANE_ID, 10L));
+        verify(courseRepository, times(1)).findCreatedCourseIds(JANE_ID);
+    }
+
+    @Test
+    void movesCourseOfUnknownPreviousCreator() {
+        courseAccessIndex.isCreatedBy(JOHN_ID, 10L);
+        courseAccessIndex.isCreatedBy(JANE_ID, 10L);
+
+        courseAccessIndex.onCourseSaved(new CourseSavedEvent(10L, JANE_ID, null));
+
+        assertEquals(Boolean.FALSE, courseAccessIndex.isCreatedBy(JOHN_ID, 10L));
+        assertEquals(Boolean.TRUE, courseAccessIndex.isCreatedBy(JANE_ID, 10L));
+    }
+
+    @Test
+    void removesDeletedCourseFromItsCreator() {
+        courseAccessIndex.isCreatedBy(JOHN_ID, 10L);
+
+        courseAccessIndex.onCourseDeleted(new CourseDeletedEvent(10L, JOHN_ID));
+
+        assertEquals(Boolean.FALSE, courseAccessIndex.isCreatedBy(JOHN_ID, 10L));
+        assertEquals(Boolean.TRUE, courseAccessIndex.isEnrolled(JOHN_ID, 20L));
+        verify(courseRepository, times(1)).findCreatedCourseIds(JOHN_ID);
+    }
+
+    @Test
+    void replacesLoadedEnrollments() {
+        courseAccessIndex.isEnrolled(JOHN_ID, 20L);
+
+        courseAccessIndex.onEnrollmentsChanged(new EnrollmentsChangedEvent(JOHN_ID, new HashSet<>(Arrays.asList(30L, 40L))));
+
+        assertEquals(Boolean.FALSE, courseAccessIndex.isEnrolled(JOHN_ID, 20L));
+        assertEquals(Boolean.TRUE, courseAccessIndex.isEnrolled(JOHN_ID, 30L));
+        assertEquals(Boolean.TRUE, courseAccessIndex.isCreatedBy(JOHN_ID, 10L));
+        verify(courseRepository, times(1)).findEnrolledCourseIds(JOHN_ID);
+    }
+
+    @Test
+    void reloadsUserWhenEnrollmentsWereNotLoaded() {
+        courseAccessIndex.isEnrolled(JOHN_ID, 20L);
+        when(courseRepository.findEnrolledCourseIds(JOHN_ID)).thenReturn(Collections.singletonList(30L));
+
+        courseAccessIndex.onEnrollmentsChanged(new EnrollmentsChangedEvent(JOHN_ID, null));
+
+        assertEquals(Boolean.TRUE, courseAccessIndex.isEnrolled(JOHN_ID, 30L));
+        verify(courseRepository, times(2)).findEnrolledCourseIds(JOHN_ID);
+    }
+
+    @Test
+    void doesNotCacheUserLoadedWhileCourseIsSaved() {
+        // Jane creates course 11, which commits while her courses are being loaded from the rows before the insert
+        when(courseRepository.findCreatedCourseIds(JANE_ID)).thenAnswer(invocation -> {
+            courseAccessIndex.onCourseSaved(new CourseSavedEvent(11L, JANE_ID, JANE_ID));
+            return Collections.emptyList();
+        });
+        assertFalse(courseAccessIndex.isCreatedBy(JANE_ID, 11L));
+
+        when(courseRepository.findCreatedCourseIds(JANE_ID)).thenReturn(Collections.singletonList(11L));
+        assertTrue(courseAccessIndex.isCreatedBy(JANE_ID, 11L));
+        assertTrue(courseAccessIndex.isCreatedBy(JANE_ID, 11L));
+        verify(courseRepository, times(2)).findCreatedCourseIds(JANE_ID);
+    }
+}
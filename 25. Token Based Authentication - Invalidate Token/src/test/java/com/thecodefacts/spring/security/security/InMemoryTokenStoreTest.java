@@ -0,0 +1,135 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.config.TokenStoreConfig;
+import com.thecodefacts.spring.security.domain.AppRole;
+import com.thecodefacts.spring.security.domain.AppUser;
+import com.thecodefacts.spring.security.enums.PermissionEnum;
+import com.thecodefacts.spring.security.enums.RoleEnum;
+import com.thecodefacts.spring.security.repo.AppRoleRepository;
+import com.thecodefacts.spring.security.repo.AppTokenRepository;
+import com.thecodefacts.spring.security.repo.AppUserRepository;
+import com.thecodefacts.spring.security.repo.RolePermissionView;
+import com.thecodefacts.spring.security.repo.UserRoleView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+// Live tokens must follow changes to their user and to the roles, instead of keeping the user as it was at login
+class InMemoryTokenStoreTest {
+    private static final Long GRU_ID = 1L;
+
+    private AppUserRepository appUserRepository;
+
+    private List<RolePermissionView> rolePermissions;
+
+    private RolePermissionMatrix rolePermissionMatrix;
+
+    private InMemoryTokenStore inMemoryTokenStore;
+
+    @BeforeEach
+    void setUp() {
+        appUserRepository = mock(AppUserRepository.class);
+
+        // Students can only play courses, instructors can also create them
+        rolePermissions = new ArrayList<>();
+        rolePermissions.add(this.rolePermission(RoleEnum.STUDENT, PermissionEnum.PLAY_COURSE));
+        rolePermissions.add(this.rolePermission(RoleEnum.INSTRUCTOR, PermissionEnum.CREATE_COURSE));
+        AppRoleRepository appRoleRepository = mock(AppRoleRepository.class);
+        when(appRoleRepository.findRolePermissions()).thenAnswer(invocation -> new ArrayList<>(rolePermissions));
+        rolePermissionMatrix = new RolePermissionMatrix();
+        setField(rolePermissionMatrix, "appRoleRepository", appRoleRepository);
+        rolePermissionMatrix.init();
+
+        UserDetailsMapper userDetailsMapper = new UserDetailsMapper();
+        setField(userDetailsMapper, "rolePermissionMatrix", rolePermissionMatrix);
+
+        AppTokenRepository appTokenRepository = mock(AppTokenRepository.class);
+        when(appTokenRepository.findByTokenExpiryTimeGreaterThan(any(Date.class))).thenReturn(Collections.emptyList());
+
+        SlidingTokenExpiry slidingTokenExpiry = mock(SlidingTokenExpiry.class);
+        when(slidingTokenExpiry.extend(anyString(), anyLong())).thenAnswer(invocation -> invocation.getArgument(1));
+
+        inMemoryTokenStore = new InMemoryTokenStore();
+        setField(inMemoryTokenStore, "appTokenRepository", appTokenRepository);
+        setField(inMemoryTokenStore, "appUserRepository", appUserRepository);
+        setField(inMemoryTokenStore, "userDetailsMapper", userDetailsMapper);
+        setField(inMemoryTokenStore, "tokenStoreConfig", new TokenStoreConfig());
+        setField(inMemoryTokenStore, "slidingTokenExpiry", slidingTokenExpiry);
+        setField(inMemoryTokenStore, "meterRegistry", new SimpleMeterRegistry());
+        inMemoryTokenStore.init();
+
+        AppUser gru = AppUser.builder()
+                .id(GRU_ID)
+                .username("Gru")
+                .password("{noop}password")
+                .roles(Collections.singleton(AppRole.builder().name(RoleEnum.STUDENT).build()))
+                .build();
+        inMemoryTokenStore.save(gru, "token-1", new Date(System.currentTimeMillis() + 60_000));
+    }
+
+    @Test
+    void refreshesUserWhoseRolesChanged() {
+        UserRoleView instructor = this.userRole(RoleEnum.INSTRUCTOR);
+        when(appUserRepository.findRolesByUsername("Gru")).thenReturn(Collections.singletonList(instructor));
+
+        inMemoryTokenStore.onUserDetailsChanged(new UserDetailsChangedEvent("Gru"));
+
+        AppPrincipal principal = (AppPrincipal) inMemoryTokenStore.find("token-1").get();
+        assertTrue(principal.hasRole(RoleEnum.INSTRUCTOR));
+        assertFalse(principal.hasRole(RoleEnum.STUDENT));
+        assertTrue(principal.hasPermission(PermissionEnum.CREATE_COURSE));
+        assertEquals("", principal.getPassword());
+    }
+
+    @Test
+    void refreshesPermissionsOfChangedRole() {
+        rolePermissions.add(this.rolePermission(RoleEnum.STUDENT, PermissionEnum.VIEW_PROFILE));
+        rolePermissionMatrix.refresh();
+
+        inMemoryTokenStore.onUserDetailsChanged(UserDetailsChangedEvent.allUsers());
+
+        AppPrincipal principal = (AppPrincipal) inMemoryTokenStore.find("token-1").get();
+        assertTrue(principal.hasPermission(PermissionEnum.VIEW_PROFILE));
+        assertTrue(principal.hasPermission(PermissionEnum.PLAY_COURSE));
+    }
+
+    @Test
+    void deletesTokensOfDeletedUser() {
+        when(appUserRepository.findRolesByUsername("Gru")).thenReturn(Collections.emptyList());
+
+        inMemoryTokenStore.onUserDetailsChanged(new UserDetailsChangedEvent("Gru"));
+
+        assertFalse(inMemoryTokenStore.find("token-1").isPresent());
+    }
+
+    private RolePermissionView rolePermission(RoleEnum role, PermissionEnum permission) {
+        RolePermissionView rolePermission = mock(RolePermissionView.class);
+        when(rolePermission.getRole()).thenReturn(role);
+        when(rolePermission.getPermission()).thenReturn(permission);
+        return rolePermission;
+    }
+
+    private UserRoleView userRole(RoleEnum role) {
+        UserRoleView userRole = mock(UserRoleView.class);
+        when(userRole.getId()).thenReturn(GRU_ID);
+        when(userRole.getUsername()).thenReturn("Gru");
+        when(userRole.getPassword()).thenReturn("{noop}password");
+        when(userRole.getRole()).thenReturn(role);
+        return userRole;
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import static com.thecodefacts.spring.security.constant.SecurityConstants.API_AUTH_TOKEN;
+import static com.thecodefacts.spring.security.constant.SecurityConstants.API_AUTH_TOKEN_REFRESH;
 import static com.thecodefacts.spring.security.constant.SecurityConstants.PUBLIC_API_LIST;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
@@ -29,7 +30,7 @@ public class ApiSecurityConfig {
                                 httpSecuritySessionManagementConfigurer.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authorizeRequests(auth -> auth
-                        .antMatchers(POST, API_AUTH_TOKEN).permitAll()
+                        .antMatchers(POST, API_AUTH_TOKEN, API_AUTH_TOKEN_REFRESH).permitAll()
                         .antMatchers(GET, PUBLIC_API_LIST).permitAll()
                         .anyRequest().authenticated()
                 );
@@ -5,9 +5,11 @@ import com.thecodefacts.spring.security.domain.AppRole;
 import com.thecodefacts.spring.security.domain.AppUser;
 import com.thecodefacts.spring.security.domain.Course;
 import com.thecodefacts.spring.security.repo.AppPermissionRepository;
+import com.thecodefacts.spring.security.repo.AppRefreshTokenRepository;
 import com.thecodefacts.spring.security.repo.AppRoleRepository;
 import com.thecodefacts.spring.security.repo.AppUserRepository;
 import com.thecodefacts.spring.security.repo.CourseRepository;
+import com.thecodefacts.spring.security.repo.TokenEpochChangeRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
@@ -37,6 +39,12 @@ public class AppDataInitialiser implements ApplicationRunner {
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private AppRefreshTokenRepository appRefreshTokenRepository;
+
+    @Autowired
+    private TokenEpochChangeRepository tokenEpochChangeRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -53,6 +61,8 @@ public class AppDataInitialiser implements ApplicationRunner {
     }
 
     private void clearAppData() {
+        appRefreshTokenRepository.deleteAll();
+        tokenEpochChangeRepository.deleteAll();
         appUserRepository.deleteAll();
         appRoleRepository.deleteAll();
         appPermissionRepository.deleteAll();
@@ -78,13 +88,17 @@ public class AppDataInitialiser implements ApplicationRunner {
         AppPermission viewProfilePermission = AppPermission.builder().name(VIEW_PROFILE).build();
         appPermissionRepository.save(viewProfilePermission);
 
+        AppPermission revokeUserTokensPermission = AppPermission.builder().name(REVOKE_USER_TOKENS).build();
+        appPermissionRepository.save(revokeUserTokensPermission);
+
         return new AppPermission[] {
                 createCoursePermission,
                 updateCoursePermission,
                 playCoursePermission,
                 listStudentsPermission,
                 listInstructorsPermission,
-                viewProfilePermission
+                viewProfilePermission,
+                revokeUserTokensPermission
         };
     }
 
@@ -95,6 +109,7 @@ public class AppDataInitialiser implements ApplicationRunner {
         AppPermission listStudentsPermission = permissions[3];
         AppPermission listInstructorsPermission = permissions[4];
         AppPermission viewProfilePermission = permissions[5];
+        AppPermission revokeUserTokensPermission = permissions[6];
 
         AppRole studentRole = AppRole.builder()
                 .name(STUDENT)
@@ -115,7 +130,7 @@ public class AppDataInitialiser implements ApplicationRunner {
         AppRole adminRole = AppRole.builder()
                 .name(ADMIN)
                 .permissions(
-                        Stream.of(listStudentsPermission, listInstructorsPermission, viewProfilePermission).collect(Collectors.toSet())
+                        Stream.of(listStudentsPermission, listInstructorsPermission, viewProfilePermission, revokeUserTokensPermission).collect(Collectors.toSet())
                 )
                 .build();
         appRoleRepository.save(adminRole);
@@ -1,35 +1,101 @@
 package com.thecodefacts.spring.security.config;
 
+import com.thecodefacts.spring.security.security.JwtKey;
+import com.thecodefacts.spring.security.security.JwtKeyring;
+import com.thecodefacts.spring.security.security.JwtVerifier;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
-import java.util.Base64;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
 
 @Configuration
 @ConfigurationProperties(prefix = "jwt.token")
 @Setter
 public class JWTConfig {
+    // Used by the HMAC algorithms (HS256, HS384, HS512)
     private String base64EncodedSecretKey;
 
+    // Used by the RSA and EC algorithms (RS*, PS*, ES*), as DER encoded PKCS#8 private and X.509 public keys
+    private String base64EncodedPrivateKey;
+
+    private String base64EncodedPublicKey;
+
     private Integer expiryInSeconds;
 
+    private Integer refreshExpiryInSeconds;
+
     private String signingAlgorithm;
 
+    private Set<String> allowedAlgorithms;
+
+    private Long allowedClockSkewInSeconds = 0L;
+
+    // Longer bearer tokens are rejected before any decoding
+    private Integer maximumLength = 4096;
+
+    // Verifies HS256/HS384/HS512 tokens without going through the generic jjwt parser
+    private boolean hmacFastPathEnabled;
+
+    private boolean cacheEnabled;
+
+    private Long cacheMaximumSize = 10_000L;
+
+    // Number of tokens expected to be revoked within the access token lifetime, used to size the Bloom filter
+    private Integer revocationExpectedEntries = 10_000;
+
+    // Key id of the above key, sent as the kid header of the tokens signed with it
+    private String keyId = "default";
+
+    // Optional file with additional keys for rotation, see JwtKeyring
+    private String keyringFile;
+
+    @Bean
+    public JwtKeyring jwtKeyring(MeterRegistry meterRegistry) {
+        // Keys are decoded once here, instead of on every sign/verify
+        JwtKey defaultKey = JwtKey.of(keyId, this.getSignatureAlgorithm(),
+                base64EncodedSecretKey, base64EncodedPrivateKey, base64EncodedPublicKey);
+        return new JwtKeyring(defaultKey, keyringFile, meterRegistry);
+    }
+
+    @Bean
+    public JwtVerifier jwtVerifier(JwtKeyring jwtKeyring) {
+        return new JwtVerifier(jwtKeyring, this.getAllowedAlgorithms(), allowedClockSkewInSeconds, maximumLength, hmacFastPathEnabled);
+    }
+
     public SignatureAlgorithm getSignatureAlgorithm() {
         return SignatureAlgorithm.valueOf(signingAlgorithm);
     }
 
-    public SecretKey getSecretKey() {
-        byte[] base64DecodedKeyBytes = Base64.getDecoder().decode(base64EncodedSecretKey);
-        SecretKey secretKey = new SecretKeySpec(base64DecodedKeyBytes, 0,
-                base64DecodedKeyBytes.length, this.getSignatureAlgorithm().getJcaName());
-        return secretKey;
+    public Set<SignatureAlgorithm> getAllowedAlgorithms() {
+        Set<SignatureAlgorithm> algorithms = EnumSet.of(this.getSignatureAlgorithm());
+        if (allowedAlgorithms != null) {
+            allowedAlgorithms.forEach(algorithm -> algorithms.add(SignatureAlgorithm.valueOf(algorithm)));
+        }
+        return algorithms;
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public Long getCacheMaximumSize() {
+        return cacheMaximumSize;
+    }
+
+    // Longest time an access token can be accepted after it was issued
+    public long getMaximumTokenAgeInMillis() {
+        return (expiryInSeconds + allowedClockSkewInSeconds) * 1000;
+    }
+
+    public Integer getRevocationExpectedEntries() {
+        return revocationExpectedEntries;
     }
 
     public Date getIssueTime() {
@@ -42,4 +108,11 @@ public class JWTConfig {
         calendar.add(Calendar.SECOND, expiryInSeconds);
         return calendar.getTime();
     }
+
+    public Date getRefreshExpiryTime(Date issueDate) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(issueDate);
+        calendar.add(Calendar.SECOND, refreshExpiryInSeconds);
+        return calendar.getTime();
+    }
 }
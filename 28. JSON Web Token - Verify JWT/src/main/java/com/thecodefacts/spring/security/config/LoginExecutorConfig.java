@@ -0,0 +1,38 @@
+package com.thecodefacts.spring.security.config;
+
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "auth.login-executor")
+@Setter
+public class LoginExecutorConfig {
+    // Threads hashing passwords, which leaves the other cores to the rest of the API during a burst of logins
+    private Integer threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    // Logins waiting for a thread, beyond which a login is rejected straight away
+    private Integer queueCapacity = 64;
+
+    // Maximum time a login waits for its verification, including its time in the queue
+    private Long timeoutInMillis = 5000L;
+
+    // Sent as Retry-After when a login is rejected
+    private Integer retryAfterInSeconds = 1;
+
+    public Integer getThreads() {
+        return threads;
+    }
+
+    public Integer getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public Long getTimeoutInMillis() {
+        return timeoutInMillis;
+    }
+
+    public Integer getRetryAfterInSeconds() {
+        return retryAfterInSeconds;
+    }
+}
@@ -2,12 +2,15 @@ package com.thecodefacts.spring.security.constant;
 
 public class SecurityConstants {
     public static final String API_AUTH_TOKEN = "/auth/token";
+    public static final String API_AUTH_TOKEN_REFRESH = "/auth/token/refresh";
     public static final String API_LIST_COURSES = "/api/v1/courses";
     public static final String API_GET_COURSE = "/api/v1/courses/*";
+    public static final String API_JWKS = "/.well-known/jwks.json";
 
     public static final String[] PUBLIC_API_LIST = new String[] {
             API_LIST_COURSES,
-            API_GET_COURSE
+            API_GET_COURSE,
+            API_JWKS
     };
 
     public static class Authority {
@@ -16,6 +19,7 @@ public class SecurityConstants {
         public static final String VIEW_PROFILE = "hasPermission(returnObject, T(com.thecodefacts.spring.security.enums.PermissionEnum).VIEW_PROFILE.name())";
         public static final String CREATE_COURSE = "hasAuthority(T(com.thecodefacts.spring.security.enums.PermissionEnum).CREATE_COURSE.name())";
         public static final String UPDATE_COURSE = "hasPermission(#courseId, T(com.thecodefacts.spring.security.domain.Course).getSimpleName(), T(com.thecodefacts.spring.security.enums.PermissionEnum).UPDATE_COURSE.name())";
+        public static final String REVOKE_USER_TOKENS = "hasAuthority(T(com.thecodefacts.spring.security.enums.PermissionEnum).REVOKE_USER_TOKENS.name())";
         public static final String PLAY_COURSE = "hasPermission(#courseId, T(com.thecodefacts.spring.security.domain.Course).getSimpleName(), T(com.thecodefacts.spring.security.enums.PermissionEnum).PLAY_COURSE.name())";
 
     }
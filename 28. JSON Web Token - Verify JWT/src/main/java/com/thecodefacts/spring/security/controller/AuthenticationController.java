@@ -1,7 +1,12 @@
 package com.thecodefacts.spring.security.controller;
 
+import com.thecodefacts.spring.security.config.LoginExecutorConfig;
+import com.thecodefacts.spring.security.security.LoginCapacityExceededException;
 import com.thecodefacts.spring.security.service.AuthenticationService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -10,17 +15,40 @@ import java.util.Map;
 
 import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED_VALUE;
 
+@Slf4j
 @RestController
 @RequestMapping("auth")
 public class AuthenticationController {
     @Autowired
     private AuthenticationService authenticationService;
 
+    @Autowired
+    private LoginExecutorConfig loginExecutorConfig;
+
     @PostMapping(path = "token", consumes = {APPLICATION_FORM_URLENCODED_VALUE})
     public ResponseEntity<Map<String,String>> generateToken(@RequestParam("username") String username,
                              @RequestParam("password") String password) {
-        String accessToken = authenticationService.generateToken(username, password);
-        Map<String, String> tokenResponse = Collections.singletonMap("accessToken", accessToken);
+        Map<String, String> tokenResponse = authenticationService.generateToken(username, password);
+        return ResponseEntity.ok(tokenResponse);
+    }
+
+    @PostMapping(path = "token/refresh", consumes = {APPLICATION_FORM_URLENCODED_VALUE})
+    public ResponseEntity<Map<String,String>> refreshToken(@RequestParam("refreshToken") String refreshToken) {
+        Map<String, String> tokenResponse = authenticationService.refreshToken(refreshToken);
         return ResponseEntity.ok(tokenResponse);
     }
+
+    @DeleteMapping("token")
+    public ResponseEntity invalidateToken() {
+        authenticationService.invalidateToken();
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(LoginCapacityExceededException.class)
+    public ResponseEntity<Map<String, String>> loginCapacityExceeded(LoginCapacityExceededException e) {
+        log.warn("Login rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginExecutorConfig.getRetryAfterInSeconds()))
+                .body(Collections.singletonMap("error", e.getMessage()));
+    }
 }
@@ -0,0 +1,104 @@
+package com.thecodefacts.spring.security.controller;
+
+import com.thecodefacts.spring.security.security.JwtKey;
+import com.thecodefacts.spring.security.security.JwtKeyring;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigInteger;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.thecodefacts.spring.security.constant.SecurityConstants.API_JWKS;
+
+@RestController
+public class JwksController {
+    @Autowired
+    private JwtKeyring jwtKeyring;
+
+    // Built only when the keyring is reloaded, so the endpoint is served from memory
+    private volatile JwkSet jwkSet;
+
+    @GetMapping(API_JWKS)
+    public ResponseEntity<Map<String, Object>> getJwkSet() {
+        Collection<JwtKey> keys = jwtKeyring.getKeys();
+        JwkSet currentJwkSet = jwkSet;
+        if (currentJwkSet == null || currentJwkSet.keys != keys) {
+            currentJwkSet = new JwkSet(keys, this.toJwkSet(keys));
+            jwkSet = currentJwkSet;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES).cachePublic())
+                .body(currentJwkSet.jwks);
+    }
+
+    private Map<String, Object> toJwkSet(Collection<JwtKey> keys) {
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (JwtKey key : keys) {
+            Map<String, Object> jwk = this.toJwk(key);
+            if (jwk != null) {
+                jwks.add(jwk);
+            }
+        }
+        return Collections.singletonMap("keys", Collections.unmodifiableList(jwks));
+    }
+
+    private Map<String, Object> toJwk(JwtKey jwtKey) {
+        Object key = jwtKey.getVerificationKey();
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        if (key instanceof RSAPublicKey) {
+            RSAPublicKey rsaPublicKey = (RSAPublicKey) key;
+            jwk.put("kty", "RSA");
+            jwk.put("n", this.base64Url(rsaPublicKey.getModulus(), 0));
+            jwk.put("e", this.base64Url(rsaPublicKey.getPublicExponent(), 0));
+        } else if (key instanceof ECPublicKey) {
+            ECPublicKey ecPublicKey = (ECPublicKey) key;
+            int fieldSize = ecPublicKey.getParams().getCurve().getField().getFieldSize();
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-" + fieldSize);
+            jwk.put("x", this.base64Url(ecPublicKey.getW().getAffineX(), (fieldSize + 7) / 8));
+            jwk.put("y", this.base64Url(ecPublicKey.getW().getAffineY(), (fieldSize + 7) / 8));
+        } else {
+            // Secret keys of the HMAC algorithms must never be published
+            return null;
+        }
+        jwk.put("kid", jwtKey.getKeyId());
+        jwk.put("use", "sig");
+        jwk.put("alg", jwtKey.getAlgorithm().getValue());
+        return Collections.unmodifiableMap(jwk);
+    }
+
+    // Unsigned big-endian bytes, left padded to the given length for the EC coordinates
+    private String base64Url(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (bytes.length < length) {
+            byte[] padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @AllArgsConstructor
+    private static class JwkSet {
+        private final Collection<JwtKey> keys;
+
+        private final Map<String, Object> jwks;
+    }
+}
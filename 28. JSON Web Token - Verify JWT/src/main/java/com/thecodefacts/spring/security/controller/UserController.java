@@ -5,6 +5,7 @@ import com.thecodefacts.spring.security.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -43,4 +44,11 @@ public class UserController {
         log.debug("User with the given id {} found", userId);
         return ResponseEntity.ok(appUser);
     }
+
+    @DeleteMapping("/{userId}/tokens")
+    public ResponseEntity revokeTokens(@PathVariable("userId") Long userId) {
+        userService.revokeTokens(userId);
+        log.debug("All the tokens of the user with the given id {} revoked", userId);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,42 @@
+package com.thecodefacts.spring.security.domain;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.util.Date;
+
+// Single use refresh token. Only its SHA-256 digest is stored, and every token rotated from the same login shares the family id.
+@Entity(name = "app_refresh_token")
+@Table(indexes = {
+        @Index(name = "ux_app_refresh_token_hash", columnList = "tokenHash", unique = true),
+        @Index(name = "ix_app_refresh_token_family", columnList = "familyId"),
+        @Index(name = "ix_app_refresh_token_expiry", columnList = "expiryTime")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class AppRefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 43)
+    private String tokenHash;
+
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private String username;
+
+    // Permissions of the user when the token was issued, in the same bitmask format as the access token claim.
+    // Refreshing loads the current permissions of the user instead.
+    private Long permissions;
+
+    @Column(nullable = false)
+    private Date expiryTime;
+
+    private boolean used;
+}
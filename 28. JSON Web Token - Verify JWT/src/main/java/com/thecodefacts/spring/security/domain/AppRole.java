@@ -2,9 +2,13 @@ package com.thecodefacts.spring.security.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.thecodefacts.spring.security.enums.RoleEnum;
+import com.thecodefacts.spring.security.security.UserDetailsChangedEvent;
 import lombok.*;
+import org.springframework.data.domain.DomainEvents;
 
 import javax.persistence.*;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Set;
 
 @Entity(name = "app_role")
@@ -32,4 +36,10 @@ public class AppRole {
             inverseJoinColumns = @JoinColumn(name = "app_permission_id")
     )
     private Set<AppPermission> permissions;
+
+    // The permissions of a role are part of the cached details of all its users
+    @DomainEvents
+    Collection<Object> domainEvents() {
+        return Collections.singletonList(UserDetailsChangedEvent.allUsers());
+    }
 }
@@ -1,9 +1,14 @@
 package com.thecodefacts.spring.security.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.thecodefacts.spring.security.security.UserDetailsChangedEvent;
 import lombok.*;
+import org.springframework.data.domain.DomainEvents;
 
 import javax.persistence.*;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.Set;
 
 import static javax.persistence.CascadeType.ALL;
@@ -19,6 +24,8 @@ public class AppUser {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Unique, as the permission checks and the logins look users up by username
+    @Column(unique = true)
     private String username;
 
     @JsonIgnore
@@ -26,6 +33,10 @@ public class AppUser {
 
     private String email;
 
+    // Access tokens issued before this time are rejected, see TokenEpochService
+    @JsonIgnore
+    private Date tokensValidAfter;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "app_user_to_role",
@@ -45,4 +56,10 @@ public class AppUser {
     @OneToMany(mappedBy = "createdBy", cascade = ALL)
     @JsonIgnore
     private Set<Course> createdCourses;
+
+    // Published on every save through AppUserRepository, which covers password and role changes
+    @DomainEvents
+    Collection<Object> domainEvents() {
+        return Collections.singletonList(new UserDetailsChangedEvent(username));
+    }
 }
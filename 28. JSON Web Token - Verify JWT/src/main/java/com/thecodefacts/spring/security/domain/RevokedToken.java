@@ -0,0 +1,23 @@
+package com.thecodefacts.spring.security.domain;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.util.Date;
+
+// Access token revoked before its expiry, kept until it would have expired anyway
+@Entity(name = "revoked_token")
+@Table(indexes = @Index(name = "ix_revoked_token_expiry", columnList = "expiryTime"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "jti")
+public class RevokedToken {
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    @Column(nullable = false)
+    private Date expiryTime;
+}
@@ -0,0 +1,26 @@
+package com.thecodefacts.spring.security.domain;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.util.Date;
+
+// Recent changes of AppUser.tokensValidAfter, polled by every node to update its in-memory copy
+@Entity(name = "token_epoch_change")
+@Table(indexes = @Index(name = "ix_token_epoch_change_time", columnList = "tokensValidAfter"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class TokenEpochChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private Date tokensValidAfter;
+}
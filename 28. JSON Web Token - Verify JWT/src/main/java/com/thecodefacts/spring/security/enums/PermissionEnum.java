@@ -1,5 +1,6 @@
 package com.thecodefacts.spring.security.enums;
 
+// New permissions must only be appended, as the ordinal is the bit position in the JWT permissions claim
 public enum PermissionEnum {
     /* Course Permissions */
     CREATE_COURSE,
@@ -9,5 +10,6 @@ public enum PermissionEnum {
     /* User Permissions */
     LIST_STUDENTS,
     LIST_INSTRUCTORS,
-    VIEW_PROFILE
+    VIEW_PROFILE,
+    REVOKE_USER_TOKENS
 }
@@ -0,0 +1,22 @@
+package com.thecodefacts.spring.security.enums;
+
+// Reason codes returned with the 401 response and used as the tag of the jwt.tokens.rejected counter
+public enum TokenRejectionReason {
+    MALFORMED("The access token is malformed"),
+    INVALID_SIGNATURE("The access token signature is invalid"),
+    UNSUPPORTED("The access token type or algorithm is not supported"),
+    EXPIRED("The access token expired"),
+    NOT_YET_VALID("The access token is not valid yet"),
+    REVOKED("The access token has been revoked"),
+    INVALID("The access token is invalid");
+
+    private final String description;
+
+    TokenRejectionReason(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -1,63 +1,136 @@
 package com.thecodefacts.spring.security.filters;
 
-import com.thecodefacts.spring.security.config.JWTConfig;
+import com.thecodefacts.spring.security.enums.RoleEnum;
+import com.thecodefacts.spring.security.enums.TokenRejectionReason;
+import com.thecodefacts.spring.security.security.AppPrincipal;
 import com.thecodefacts.spring.security.security.AuthenticationFacade;
+import com.thecodefacts.spring.security.security.JwtVerifier;
+import com.thecodefacts.spring.security.security.PermissionClaimCodec;
+import com.thecodefacts.spring.security.security.TokenDetails;
+import com.thecodefacts.spring.security.security.TokenRejectedException;
+import com.thecodefacts.spring.security.security.VerifiedTokenCache;
+import com.thecodefacts.spring.security.service.TokenEpochService;
+import com.thecodefacts.spring.security.service.TokenRevocationService;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Date;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Component
 public class TokenVerificationFilter extends OncePerRequestFilter {
+    private static final String BEARER_PREFIX = "Bearer ";
+
     @Autowired
     private AuthenticationFacade authenticationFacade;
 
     @Autowired
-    private JWTConfig jwtConfig;
+    private JwtVerifier jwtVerifier;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private PermissionClaimCodec permissionClaimCodec;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private TokenEpochService tokenEpochService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<TokenRejectionReason, Counter> rejectionCounters = new EnumMap<>(TokenRejectionReason.class);
+
+    // Response headers and bodies never change per reason, so they are built once
+    private final Map<TokenRejectionReason, String> rejectionHeaders = new EnumMap<>(TokenRejectionReason.class);
+
+    private final Map<TokenRejectionReason, byte[]> rejectionBodies = new EnumMap<>(TokenRejectionReason.class);
+
+    @PostConstruct
+    public void init() {
+        for (TokenRejectionReason reason : TokenRejectionReason.values()) {
+            rejectionCounters.put(reason, Counter.builder("jwt.tokens.rejected")
+                    .tag("reason", reason.name())
+                    .description("Number of bearer tokens rejected per reason")
+                    .register(meterRegistry));
+            rejectionHeaders.put(reason, String.format("Bearer error=\"invalid_token\", error_description=\"%s\"",
+                    reason.getDescription()));
+            rejectionBodies.put(reason, String.format("{\"error\":\"invalid_token\",\"reason\":\"%s\",\"message\":\"%s\"}",
+                    reason.name(), reason.getDescription()).getBytes(StandardCharsets.UTF_8));
+        }
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String authorizationHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
 
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            String accessToken = authorizationHeader.replace("Bearer ", "");
-            // Parse JWT using the SecretKey
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(jwtConfig.getSecretKey())
-                    .build()
-                    .parseClaimsJws(accessToken)
-                    .getBody();
-
-            // Check if JWT has expired
-            if (claims.getExpiration().after(new Date())) {
-                Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
-                        claims.getSubject(), null, this.getAuthorities(claims)
-                );
+        if (authorizationHeader != null && authorizationHeader.startsWith(BEARER_PREFIX)) {
+            String accessToken = authorizationHeader.substring(BEARER_PREFIX.length());
+            try {
+                // Reuse the Authentication of a token that was already verified and has not expired yet
+                Authentication authentication = verifiedTokenCache.get(accessToken);
+                if (authentication == null) {
+                    // Verify and parse JWT using the prebuilt parser, which checks the structure first and also rejects expired tokens
+                    Claims claims = jwtVerifier.verify(accessToken);
+
+                    List<GrantedAuthority> authorities = permissionClaimCodec.decode(claims);
+                    // The principal is an AppPrincipal, so permission checks can test its permission set.
+                    // It has no roles, as the token only carries the permissions.
+                    AppPrincipal principal = new AppPrincipal(claims.getSubject(), "",
+                            EnumSet.noneOf(RoleEnum.class), permissionClaimCodec.toPermissions(authorities));
+                    UsernamePasswordAuthenticationToken authenticationToken = UsernamePasswordAuthenticationToken.authenticated(
+                            principal, null, authorities
+                    );
+                    authenticationToken.setDetails(new TokenDetails(claims.getId(), claims.getIssuedAt(), claims.getExpiration()));
+                    authentication = authenticationToken;
+                    verifiedTokenCache.put(accessToken, authentication, claims.getExpiration());
+                }
+
+                // Checked on every request, as a cached token may have been revoked since
+                TokenDetails tokenDetails = (TokenDetails) authentication.getDetails();
+                if (tokenRevocationService.isRevoked(tokenDetails.getJti())
+                        || tokenEpochService.isRevoked(authentication.getName(), tokenDetails.getIssueTime())) {
+                    throw new TokenRejectedException(TokenRejectionReason.REVOKED);
+                }
                 authenticationFacade.setAuthentication(authentication);
+            } catch (TokenRejectedException e) {
+                this.reject(response, e.getReason());
+                return;
             }
         }
 
         filterChain.doFilter(request, response);
     }
 
-    private List<GrantedAuthority> getAuthorities(Claims claims) {
-        return ((List<String>) claims.get("authorities")).stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+    private void reject(HttpServletResponse response, TokenRejectionReason reason) throws IOException {
+        rejectionCounters.get(reason).increment();
+        byte[] body = rejectionBodies.get(reason);
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, rejectionHeaders.get(reason));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
     }
 }
@@ -0,0 +1,33 @@
+package com.thecodefacts.spring.security.repo;
+
+import com.thecodefacts.spring.security.domain.AppRefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.Optional;
+
+@Repository
+public interface AppRefreshTokenRepository extends JpaRepository<AppRefreshToken, Long> {
+    Optional<AppRefreshToken> findByTokenHash(String tokenHash);
+
+    // Returns 0 when the token was already used, including by a concurrent request
+    @Modifying
+    @Query("update app_refresh_token t set t.used = true where t.id = :id and t.used = false")
+    int markUsed(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from app_refresh_token t where t.familyId = :familyId")
+    int deleteByFamilyId(@Param("familyId") String familyId);
+
+    @Modifying
+    @Query("delete from app_refresh_token t where t.username = :username")
+    int deleteByUsername(@Param("username") String username);
+
+    @Modifying
+    @Query("delete from app_refresh_token t where t.expiryTime < :time")
+    int deleteExpiredBefore(@Param("time") Date time);
+}
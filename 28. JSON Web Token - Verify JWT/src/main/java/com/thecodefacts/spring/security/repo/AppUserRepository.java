@@ -2,11 +2,26 @@ package com.thecodefacts.spring.security.repo;
 
 import com.thecodefacts.spring.security.domain.AppUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AppUserRepository extends JpaRepository<AppUser, Long> {
     Optional<AppUser> findByUsername(String username);
+
+    // Loads everything needed for the UserDetails in a single statement, instead of the user and then its EAGER roles and permissions.
+    // Permissions are resolved from the roles by the RolePermissionMatrix.
+    @Query("select u.username as username, u.password as password, r.name as role " +
+            "from app_user u left join u.roles r where u.username = :username")
+    List<UserRoleView> findRolesByUsername(@Param("username") String username);
+
+    @Modifying
+    @Query("update app_user u set u.tokensValidAfter = :time where u.id = :id")
+    int updateTokensValidAfter(@Param("id") Long id, @Param("time") Date time);
 }
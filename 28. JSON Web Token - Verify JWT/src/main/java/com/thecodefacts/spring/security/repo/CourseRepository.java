@@ -2,8 +2,19 @@ package com.thecodefacts.spring.security.repo;
 
 import com.thecodefacts.spring.security.domain.Course;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CourseRepository extends JpaRepository<Course, Long> {
+    // Unique key lookup of the user, then primary key lookup on the join table, without loading the user or its enrolled courses
+    @Query(value = "select count(*) from app_user_to_course uc join app_user u on u.id = uc.app_user_id " +
+            "where u.username = :username and uc.course_id = :courseId", nativeQuery = true)
+    long countEnrollments(@Param("username") String username, @Param("courseId") Long courseId);
+
+    // Primary key lookup on course, without loading the course or its creator
+    @Query(value = "select count(*) from course c join app_user u on u.id = c.created_by_id " +
+            "where c.id = :courseId and u.username = :username", nativeQuery = true)
+    long countCreatedBy(@Param("username") String username, @Param("courseId") Long courseId);
 }
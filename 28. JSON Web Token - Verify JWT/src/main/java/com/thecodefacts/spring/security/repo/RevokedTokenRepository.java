@@ -0,0 +1,21 @@
+package com.thecodefacts.spring.security.repo;
+
+import com.thecodefacts.spring.security.domain.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    @Query("select t.jti from revoked_token t where t.expiryTime > :time")
+    List<String> findJtisExpiringAfter(@Param("time") Date time);
+
+    @Modifying
+    @Query("delete from revoked_token t where t.expiryTime < :time")
+    int deleteExpiredBefore(@Param("time") Date time);
+}
@@ -0,0 +1,11 @@
+package com.thecodefacts.spring.security.repo;
+
+import com.thecodefacts.spring.security.enums.PermissionEnum;
+import com.thecodefacts.spring.security.enums.RoleEnum;
+
+// One row per permission of a role, with a null permission for a role without any
+public interface RolePermissionView {
+    RoleEnum getRole();
+
+    PermissionEnum getPermission();
+}
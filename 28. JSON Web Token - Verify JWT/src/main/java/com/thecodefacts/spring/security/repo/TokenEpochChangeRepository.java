@@ -0,0 +1,20 @@
+package com.thecodefacts.spring.security.repo;
+
+import com.thecodefacts.spring.security.domain.TokenEpochChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface TokenEpochChangeRepository extends JpaRepository<TokenEpochChange, Long> {
+    List<TokenEpochChange> findByTokensValidAfterGreaterThan(Date time);
+
+    @Modifying
+    @Query("delete from token_epoch_change c where c.tokensValidAfter < :time")
+    int deleteOlderThan(@Param("time") Date time);
+}
@@ -0,0 +1,72 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.enums.PermissionEnum;
+import com.thecodefacts.spring.security.enums.RoleEnum;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Authenticated user with its roles and permissions held as EnumSets, so checking one is a bit test.
+ * The permissions are also exposed as GrantedAuthority, for Spring's own hasAuthority expressions and voters.
+ * A principal built from an access token has no roles, as the token only carries the permissions.
+ */
+public class AppPrincipal extends User {
+    private static final Map<String, PermissionEnum> PERMISSIONS_BY_NAME = new HashMap<>();
+
+    static {
+        for (PermissionEnum permission : PermissionEnum.values()) {
+            PERMISSIONS_BY_NAME.put(permission.name(), permission);
+        }
+    }
+
+    private final EnumSet<RoleEnum> roles;
+
+    private final EnumSet<PermissionEnum> permissions;
+
+    public AppPrincipal(String username, String password, Collection<RoleEnum> roles, Collection<PermissionEnum> permissions) {
+        super(username, password, AuthorityUtils.createAuthorityList(permissions.stream().map(Enum::name).toArray(String[]::new)));
+        this.roles = roles.isEmpty() ? EnumSet.noneOf(RoleEnum.class) : EnumSet.copyOf(roles);
+        this.permissions = permissions.isEmpty() ? EnumSet.noneOf(PermissionEnum.class) : EnumSet.copyOf(permissions);
+    }
+
+    public boolean hasRole(RoleEnum role) {
+        return roles.contains(role);
+    }
+
+    public boolean hasPermission(PermissionEnum permission) {
+        return permissions.contains(permission);
+    }
+
+    public Set<RoleEnum> getRoles() {
+        return Collections.unmodifiableSet(roles);
+    }
+
+    public Set<PermissionEnum> getPermissions() {
+        return Collections.unmodifiableSet(permissions);
+    }
+
+    // Copy with another password, e.g. for the copies kept by the user cache
+    public AppPrincipal withPassword(String password) {
+        return new AppPrincipal(this.getUsername(), password, roles, permissions);
+    }
+
+    // Matches the permission names case-insensitively, like the authority checks did. Returns null for an unknown name.
+    public static PermissionEnum toPermission(Object permission) {
+        if (permission instanceof PermissionEnum) {
+            return (PermissionEnum) permission;
+        }
+        if (permission instanceof String) {
+            PermissionEnum permissionEnum = PERMISSIONS_BY_NAME.get(permission);
+            return permissionEnum != null ? permissionEnum : PERMISSIONS_BY_NAME.get(((String) permission).toUpperCase(Locale.ROOT));
+        }
+        return null;
+    }
+}
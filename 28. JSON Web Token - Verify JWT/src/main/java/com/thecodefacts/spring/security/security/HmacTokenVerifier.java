@@ -0,0 +1,171 @@
+package com.thecodefacts.spring.security.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thecodefacts.spring.security.enums.TokenRejectionReason;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.jsonwebtoken.impl.DefaultJwsHeader;
+
+import javax.crypto.Mac;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Verifies HMAC signed tokens with one pre-keyed Mac per thread, and parses the payload only once the signature matches.
+// Returns null for tokens it does not handle (other algorithms, compressed or critical headers), which are left to jjwt.
+// Rejections are thrown as TokenRejectedException, so a forged or expired token costs no stack trace.
+public class HmacTokenVerifier {
+    private static final int MAX_CACHED_HEADERS = 64;
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {};
+
+    private final JwtKeyring jwtKeyring;
+
+    private final Set<SignatureAlgorithm> allowedAlgorithms;
+
+    private final long allowedClockSkewMillis;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // All the tokens signed with the same key share the same header segment, so it is parsed only once
+    private final Map<String, JwsHeader> headersBySegment = new ConcurrentHashMap<>();
+
+    // A Mac is not thread-safe, but can be reused after doFinal() without initialising it again
+    private final ThreadLocal<MacCache> macCache = ThreadLocal.withInitial(MacCache::new);
+
+    public HmacTokenVerifier(JwtKeyring jwtKeyring, Set<SignatureAlgorithm> allowedAlgorithms, long allowedClockSkewInSeconds) {
+        this.jwtKeyring = jwtKeyring;
+        this.allowedAlgorithms = allowedAlgorithms;
+        this.allowedClockSkewMillis = allowedClockSkewInSeconds * 1000;
+    }
+
+    // Expects a token that already passed JwtVerifier.checkStructure()
+    public Claims verify(String token) {
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = token.indexOf('.', headerEnd + 1);
+
+        String headerSegment = token.substring(0, headerEnd);
+        JwsHeader header = headersBySegment.get(headerSegment);
+        if (header == null) {
+            header = new DefaultJwsHeader(this.readJson(headerSegment));
+        }
+        if (header.getCompressionAlgorithm() != null || header.get("crit") != null) {
+            return null;
+        }
+        SignatureAlgorithm algorithm = this.getAlgorithm(header);
+        if (algorithm == null || !algorithm.isHmac() || !allowedAlgorithms.contains(algorithm)) {
+            return null;
+        }
+
+        JwtKey jwtKey = jwtKeyring.getKey(header.getKeyId());
+        jwtKeyring.countPresentedKey(jwtKey);
+        if (jwtKey == null || jwtKey.getAlgorithm() != algorithm) {
+            throw new TokenRejectedException(TokenRejectionReason.INVALID_SIGNATURE);
+        }
+
+        // Signature is computed over the raw "header.payload" bytes, before anything in the payload is decoded
+        Mac mac = this.getMac(jwtKey);
+        mac.update(token.getBytes(StandardCharsets.US_ASCII), 0, payloadEnd);
+        byte[] expectedSignature = mac.doFinal();
+        byte[] signature = this.decode(token.substring(payloadEnd + 1));
+        if (!MessageDigest.isEqual(expectedSignature, signature)) {
+            throw new TokenRejectedException(TokenRejectionReason.INVALID_SIGNATURE);
+        }
+        // Only headers of correctly signed tokens are kept, so forged tokens cannot fill up the map
+        if (headersBySegment.size() < MAX_CACHED_HEADERS) {
+            headersBySegment.putIfAbsent(headerSegment, header);
+        }
+
+        Claims claims = new DefaultClaims(this.readJson(token.substring(headerEnd + 1, payloadEnd)));
+        this.validateTimestamps(claims);
+        return claims;
+    }
+
+    private SignatureAlgorithm getAlgorithm(JwsHeader header) {
+        for (SignatureAlgorithm algorithm : SignatureAlgorithm.values()) {
+            if (algorithm.getValue().equals(header.getAlgorithm())) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    private Mac getMac(JwtKey jwtKey) {
+        MacCache cache = macCache.get();
+        // Every reload creates new JwtKey instances, so the Macs of the previous keys are dropped with them
+        Collection<JwtKey> keys = jwtKeyring.getKeys();
+        if (cache.keys != keys) {
+            cache.keys = keys;
+            cache.macsByKey.clear();
+        }
+        return cache.macsByKey.computeIfAbsent(jwtKey, key -> {
+            try {
+                Mac mac = Mac.getInstance(key.getAlgorithm().getJcaName());
+                mac.init(key.getVerificationKey());
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(String.format("Unable to initialise Mac for the key %s", key.getKeyId()), e);
+            }
+        });
+    }
+
+    private void validateTimestamps(Claims claims) {
+        long now = System.currentTimeMillis();
+        Date expiration = this.getDate(claims, Claims.EXPIRATION);
+        if (expiration != null && now - allowedClockSkewMillis > expiration.getTime()) {
+            throw new TokenRejectedException(TokenRejectionReason.EXPIRED);
+        }
+        Date notBefore = this.getDate(claims, Claims.NOT_BEFORE);
+        if (notBefore != null && now + allowedClockSkewMillis < notBefore.getTime()) {
+            throw new TokenRejectedException(TokenRejectionReason.NOT_YET_VALID);
+        }
+    }
+
+    private Date getDate(Claims claims, String name) {
+        try {
+            return claims.get(name, Date.class);
+        } catch (RuntimeException e) {
+            throw new TokenRejectedException(TokenRejectionReason.MALFORMED);
+        }
+    }
+
+    private Map<String, Object> readJson(String segment) {
+        Map<String, Object> json;
+        try {
+            json = objectMapper.readValue(this.decode(segment), MAP_TYPE);
+        } catch (IOException e) {
+            throw new TokenRejectedException(TokenRejectionReason.MALFORMED);
+        }
+        // The literal null is read without an error, but a header or payload must be a JSON object
+        if (json == null) {
+            throw new TokenRejectedException(TokenRejectionReason.MALFORMED);
+        }
+        return json;
+    }
+
+    private byte[] decode(String segment) {
+        try {
+            return Base64.getUrlDecoder().decode(segment);
+        } catch (IllegalArgumentException e) {
+            throw new TokenRejectedException(TokenRejectionReason.MALFORMED);
+        }
+    }
+
+    private static class MacCache {
+        // Keys of the keyring snapshot the Macs below were initialised with
+        private Collection<JwtKey> keys;
+
+        private final Map<JwtKey, Mac> macsByKey = new IdentityHashMap<>();
+    }
+}
@@ -0,0 +1,51 @@
+package com.thecodefacts.spring.security.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+@Getter
+@AllArgsConstructor
+public class JwtKey {
+    private final String keyId;
+
+    private final SignatureAlgorithm algorithm;
+
+    // Null when the key is only kept to verify tokens signed before a rotation
+    private final Key signingKey;
+
+    private final Key verificationKey;
+
+    public static JwtKey of(String keyId, SignatureAlgorithm algorithm, String base64EncodedSecretKey,
+                            String base64EncodedPrivateKey, String base64EncodedPublicKey) {
+        if (algorithm.isHmac()) {
+            byte[] base64DecodedKeyBytes = Base64.getDecoder().decode(base64EncodedSecretKey);
+            Key secretKey = new SecretKeySpec(base64DecodedKeyBytes, 0,
+                    base64DecodedKeyBytes.length, algorithm.getJcaName());
+            return new JwtKey(keyId, algorithm, secretKey, secretKey);
+        }
+
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm.isRsa() ? "RSA" : "EC");
+            // Private key is optional, so that a service can be configured to only verify tokens
+            Key privateKey = null;
+            if (base64EncodedPrivateKey != null) {
+                privateKey = keyFactory.generatePrivate(
+                        new PKCS8EncodedKeySpec(Base64.getDecoder().decode(base64EncodedPrivateKey)));
+            }
+            Key publicKey = keyFactory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(base64EncodedPublicKey)));
+            return new JwtKey(keyId, algorithm, privateKey, publicKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(String.format("Invalid key pair %s for the signing algorithm %s", keyId, algorithm), e);
+        }
+    }
+}
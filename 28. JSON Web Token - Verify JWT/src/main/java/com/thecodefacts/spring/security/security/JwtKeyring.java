@@ -0,0 +1,161 @@
+package com.thecodefacts.spring.security.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Holds the active signing key and all the keys still accepted for verification, looked up by the JWT kid header.
+ * Keys are loaded from application.properties and optionally from a keyring file in the below format,
+ * which is reloaded without a restart whenever it is modified.
+ *
+ *   active-key-id=2022-10
+ *   keys.2022-10.signing-algorithm=ES256
+ *   keys.2022-10.base64-encoded-private-key=...
+ *   keys.2022-10.base64-encoded-public-key=...
+ *   keys.2022-07.signing-algorithm=HS256
+ *   keys.2022-07.base64-encoded-secret-key=...
+ */
+@Slf4j
+public class JwtKeyring extends SigningKeyResolverAdapter {
+    private static final String UNKNOWN_KEY_ID = "unknown";
+
+    private final JwtKey defaultKey;
+
+    private final Path keyringFile;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Counter> presentedKeyCounters = new ConcurrentHashMap<>();
+
+    // Replaced as a whole on reload, so readers always see a consistent set of keys
+    private volatile Snapshot snapshot;
+
+    private volatile long keyringFileLastModified;
+
+    public JwtKeyring(JwtKey defaultKey, String keyringFile, MeterRegistry meterRegistry) {
+        this.defaultKey = defaultKey;
+        this.keyringFile = keyringFile != null ? Paths.get(keyringFile) : null;
+        this.meterRegistry = meterRegistry;
+        this.snapshot = new Snapshot(defaultKey, Collections.singletonMap(defaultKey.getKeyId(), defaultKey));
+        this.reload();
+    }
+
+    public JwtKey getActiveKey() {
+        return snapshot.activeKey;
+    }
+
+    public JwtKey getKey(String keyId) {
+        // Tokens issued before the kid header was introduced are verified with the default key
+        return keyId != null ? snapshot.keysById.get(keyId) : defaultKey;
+    }
+
+    public Collection<JwtKey> getKeys() {
+        // Same instance until the next reload
+        return snapshot.keys;
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        JwtKey jwtKey = this.getKey(header.getKeyId());
+        this.countPresentedKey(jwtKey);
+        if (jwtKey == null) {
+            throw new SignatureException(String.format("Unknown key id %s", header.getKeyId()));
+        }
+        if (!jwtKey.getAlgorithm().getValue().equals(header.getAlgorithm())) {
+            throw new SignatureException(String.format("Key %s is not used with the algorithm %s", jwtKey.getKeyId(), header.getAlgorithm()));
+        }
+        return jwtKey.getVerificationKey();
+    }
+
+    public void countPresentedKey(JwtKey jwtKey) {
+        String keyId = jwtKey != null ? jwtKey.getKeyId() : UNKNOWN_KEY_ID;
+        presentedKeyCounters.computeIfAbsent(keyId,
+                id -> Counter.builder("jwt.keys.presented")
+                        .tag("kid", id)
+                        .description("Number of tokens verified per signing key id")
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.token.keyring-reload-interval-in-millis:10000}")
+    public void reload() {
+        if (keyringFile == null || !Files.exists(keyringFile)) {
+            return;
+        }
+        try {
+            long lastModified = Files.getLastModifiedTime(keyringFile).toMillis();
+            if (lastModified != keyringFileLastModified) {
+                snapshot = this.load();
+                keyringFileLastModified = lastModified;
+                log.info("Loaded {} JWT keys from {}, active key id is {}", snapshot.keysById.size(), keyringFile, snapshot.activeKey.getKeyId());
+            }
+        } catch (IOException | RuntimeException e) {
+            // Keep using the current keys until the file is fixed
+            log.error("Unable to load the JWT keyring from {}", keyringFile, e);
+        }
+    }
+
+    private Snapshot load() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(keyringFile)) {
+            properties.load(inputStream);
+        }
+
+        Map<String, JwtKey> keysById = new HashMap<>();
+        keysById.put(defaultKey.getKeyId(), defaultKey);
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("keys.") && name.endsWith(".signing-algorithm")) {
+                String keyId = name.substring("keys.".length(), name.length() - ".signing-algorithm".length());
+                String prefix = "keys." + keyId + ".";
+                keysById.put(keyId, JwtKey.of(
+                        keyId,
+                        SignatureAlgorithm.valueOf(properties.getProperty(name)),
+                        properties.getProperty(prefix + "base64-encoded-secret-key"),
+                        properties.getProperty(prefix + "base64-encoded-private-key"),
+                        properties.getProperty(prefix + "base64-encoded-public-key")
+                ));
+            }
+        }
+
+        JwtKey activeKey = keysById.get(properties.getProperty("active-key-id", defaultKey.getKeyId()));
+        if (activeKey == null || activeKey.getSigningKey() == null) {
+            throw new IllegalStateException("Active key id must refer to a key with a signing key");
+        }
+        return new Snapshot(activeKey, Collections.unmodifiableMap(keysById));
+    }
+
+    private static class Snapshot {
+        private final JwtKey activeKey;
+
+        private final Map<String, JwtKey> keysById;
+
+        private final Collection<JwtKey> keys;
+
+        private Snapshot(JwtKey activeKey, Map<String, JwtKey> keysById) {
+            this.activeKey = activeKey;
+            this.keysById = keysById;
+            this.keys = Collections.unmodifiableCollection(new ArrayList<>(keysById.values()));
+        }
+    }
+}
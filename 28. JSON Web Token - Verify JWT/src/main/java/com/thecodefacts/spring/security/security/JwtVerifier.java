@@ -0,0 +1,142 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.enums.TokenRejectionReason;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.DecodingException;
+import io.jsonwebtoken.security.SignatureException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+// JwtParser is immutable and thread-safe, so it is built once and shared by all requests
+public class JwtVerifier {
+    // Characters allowed in a Base64URL encoded segment, without padding
+    private static final boolean[] BASE64URL_ALPHABET = new boolean[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            BASE64URL_ALPHABET[c] = true;
+            BASE64URL_ALPHABET[Character.toLowerCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            BASE64URL_ALPHABET[c] = true;
+        }
+        BASE64URL_ALPHABET['-'] = true;
+        BASE64URL_ALPHABET['_'] = true;
+    }
+
+    private final JwtParser jwtParser;
+
+    private final Set<SignatureAlgorithm> allowedAlgorithms;
+
+    private final int maximumLength;
+
+    // Null when the HMAC fast path is disabled
+    private final HmacTokenVerifier hmacTokenVerifier;
+
+    public JwtVerifier(JwtKeyring jwtKeyring, Set<SignatureAlgorithm> allowedAlgorithms, long allowedClockSkewInSeconds,
+                       int maximumLength, boolean hmacFastPathEnabled) {
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(jwtKeyring)
+                .setAllowedClockSkewSeconds(allowedClockSkewInSeconds)
+                .build();
+        this.allowedAlgorithms = Collections.unmodifiableSet(EnumSet.copyOf(allowedAlgorithms));
+        this.maximumLength = maximumLength;
+        this.hmacTokenVerifier = hmacFastPathEnabled
+                ? new HmacTokenVerifier(jwtKeyring, this.allowedAlgorithms, allowedClockSkewInSeconds)
+                : null;
+    }
+
+    // Throws TokenRejectedException for any token that is not valid, with the reason it was rejected
+    public Claims verify(String token) {
+        this.checkStructure(token);
+
+        try {
+            return this.parse(token);
+        } catch (TokenRejectedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // Anything else thrown while decoding an untrusted token, e.g. a header that is a JSON array instead of an object
+            throw new TokenRejectedException(TokenRejectionReason.MALFORMED);
+        }
+    }
+
+    private Claims parse(String token) {
+        if (hmacTokenVerifier != null) {
+            Claims claims = hmacTokenVerifier.verify(token);
+            if (claims != null) {
+                return claims;
+            }
+        }
+
+        Jws<Claims> jws;
+        try {
+            // Verifies the signature and the exp/nbf claims (within the allowed clock skew)
+            jws = jwtParser.parseClaimsJws(token);
+        } catch (JwtException e) {
+            throw new TokenRejectedException(this.getReason(e));
+        }
+
+        SignatureAlgorithm algorithm = SignatureAlgorithm.forName(jws.getHeader().getAlgorithm());
+        if (!allowedAlgorithms.contains(algorithm)) {
+            throw new TokenRejectedException(TokenRejectionReason.UNSUPPORTED);
+        }
+        return jws.getBody();
+    }
+
+    // Rejects anything that cannot be a signed JWT (too long, not three non-empty Base64URL segments) before any decoding or crypto
+    private void checkStructure(String token) {
+        int length = token.length();
+        if (length == 0 || length > maximumLength) {
+            throw new TokenRejectedException(TokenRejectionReason.MALFORMED);
+        }
+        int separators = 0;
+        int segmentLength = 0;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                if (segmentLength == 0 || ++separators > 2) {
+                    throw new TokenRejectedException(TokenRejectionReason.MALFORMED);
+                }
+                segmentLength = 0;
+            } else if (c < BASE64URL_ALPHABET.length && BASE64URL_ALPHABET[c]) {
+                segmentLength++;
+            } else {
+                throw new TokenRejectedException(TokenRejectionReason.MALFORMED);
+            }
+        }
+        // An empty signature segment would be an unsigned token
+        if (separators != 2 || segmentLength == 0) {
+            throw new TokenRejectedException(TokenRejectionReason.MALFORMED);
+        }
+    }
+
+    private TokenRejectionReason getReason(RuntimeException e) {
+        if (e instanceof ExpiredJwtException) {
+            return TokenRejectionReason.EXPIRED;
+        }
+        if (e instanceof PrematureJwtException) {
+            return TokenRejectionReason.NOT_YET_VALID;
+        }
+        if (e instanceof SignatureException) {
+            return TokenRejectionReason.INVALID_SIGNATURE;
+        }
+        if (e instanceof UnsupportedJwtException) {
+            return TokenRejectionReason.UNSUPPORTED;
+        }
+        if (e instanceof MalformedJwtException || e instanceof DecodingException) {
+            return TokenRejectionReason.MALFORMED;
+        }
+        return TokenRejectionReason.INVALID;
+    }
+}
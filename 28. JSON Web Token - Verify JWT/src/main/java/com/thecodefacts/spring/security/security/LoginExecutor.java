@@ -0,0 +1,121 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.config.LoginExecutorConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Runs the credential verification of logins, which is dominated by the BCrypt hash, on a fixed size pool
+ * with a bounded queue, so a burst of logins cannot take all the cores from the rest of the API.
+ * A login is rejected with a LoginCapacityExceededException when the queue is full or its verification times out.
+ */
+@Slf4j
+@Component
+public class LoginExecutor {
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private LoginExecutorConfig loginExecutorConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer verificationTime;
+
+    private Counter rejectedLogins;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(
+                loginExecutorConfig.getThreads(),
+                loginExecutorConfig.getThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(loginExecutorConfig.getQueueCapacity()),
+                new LoginThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        Gauge.builder("auth.login.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Number of logins waiting for a verification thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Number of logins being verified")
+                .register(meterRegistry);
+        verificationTime = Timer.builder("auth.login.verification")
+                .description("Time taken to verify the credentials of a login, mostly spent hashing the password")
+                .register(meterRegistry);
+        rejectedLogins = Counter.builder("auth.login.rejected")
+                .description("Number of logins rejected because the verification threads were saturated")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Authentication authenticate(Authentication authentication) {
+        Future<Authentication> result;
+        try {
+            result = executor.submit(() -> verificationTime.recordCallable(() -> authenticationManager.authenticate(authentication)));
+        } catch (RejectedExecutionException e) {
+            rejectedLogins.increment();
+            throw new LoginCapacityExceededException("Too many logins waiting for verification");
+        }
+
+        try {
+            return result.get(loginExecutorConfig.getTimeoutInMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            rejectedLogins.increment();
+            throw new LoginCapacityExceededException("Login verification timed out");
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new LoginCapacityExceededException("Interrupted while waiting for the login verification");
+        } catch (ExecutionException e) {
+            // AuthenticationException and any other failure are rethrown as if authenticated on this thread
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static class LoginThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "login-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
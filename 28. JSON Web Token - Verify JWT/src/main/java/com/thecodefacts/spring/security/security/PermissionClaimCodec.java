@@ -0,0 +1,134 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.enums.PermissionEnum;
+import com.thecodefacts.spring.security.enums.TokenRejectionReason;
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Encodes the granted permissions as a bitmask claim, where the bit position is the PermissionEnum ordinal
+@Component
+public class PermissionClaimCodec {
+    public static final String PERMISSIONS_CLAIM = "perms";
+    public static final String PERMISSIONS_VERSION_CLAIM = "pv";
+    public static final int PERMISSIONS_VERSION = 1;
+
+    // Claim written by the tokens issued before the bitmask format, still accepted while they expire
+    public static final String LEGACY_AUTHORITIES_CLAIM = "authorities";
+
+    private static final PermissionEnum[] PERMISSIONS = PermissionEnum.values();
+
+    private static final long KNOWN_PERMISSIONS_MASK = PERMISSIONS.length >= Long.SIZE ? -1L : (1L << PERMISSIONS.length) - 1;
+
+    // Only a handful of masks are ever seen, one per combination of roles, but the map is bounded all the same
+    private static final int MAX_CACHED_MASKS = 1024;
+
+    private final GrantedAuthority[] authorityByPermission = new GrantedAuthority[PERMISSIONS.length];
+
+    private final Map<String, GrantedAuthority> authorityByName = new HashMap<>();
+
+    private final Map<String, PermissionEnum> permissionByName = new HashMap<>();
+
+    // Each mask is decoded once, on its first use, so decoding a known mask is a map lookup
+    private final Map<Long, List<GrantedAuthority>> authoritiesByMask = new ConcurrentHashMap<>();
+
+    public PermissionClaimCodec() {
+        for (PermissionEnum permission : PERMISSIONS) {
+            GrantedAuthority authority = new SimpleGrantedAuthority(permission.name());
+            authorityByPermission[permission.ordinal()] = authority;
+            authorityByName.put(permission.name(), authority);
+            permissionByName.put(permission.name(), permission);
+        }
+    }
+
+    public Map<String, Object> encode(Collection<? extends GrantedAuthority> grantedAuthorities) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(PERMISSIONS_VERSION_CLAIM, PERMISSIONS_VERSION);
+        claims.put(PERMISSIONS_CLAIM, this.toMask(grantedAuthorities));
+        return claims;
+    }
+
+    // Rejects a bitmask written in a version this codec does not know, as its bits may mean other permissions
+    public List<GrantedAuthority> decode(Claims claims) {
+        Object permissions = claims.get(PERMISSIONS_CLAIM);
+        if (permissions == null) {
+            return this.decodeLegacy(claims);
+        }
+        Object version = claims.get(PERMISSIONS_VERSION_CLAIM);
+        if (!(permissions instanceof Number) || !(version instanceof Number) || ((Number) version).intValue() != PERMISSIONS_VERSION) {
+            throw new TokenRejectedException(TokenRejectionReason.UNSUPPORTED);
+        }
+        return this.fromMask(((Number) permissions).longValue());
+    }
+
+    public long toMask(Collection<? extends GrantedAuthority> grantedAuthorities) {
+        long mask = 0;
+        for (GrantedAuthority grantedAuthority : grantedAuthorities) {
+            PermissionEnum permission = permissionByName.get(grantedAuthority.getAuthority());
+            if (permission != null) {
+                mask |= 1L << permission.ordinal();
+            }
+        }
+        return mask;
+    }
+
+    // Permissions of the given authorities, leaving out the legacy authorities that are not a known permission
+    public Set<PermissionEnum> toPermissions(Collection<? extends GrantedAuthority> grantedAuthorities) {
+        Set<PermissionEnum> permissions = EnumSet.noneOf(PermissionEnum.class);
+        for (GrantedAuthority grantedAuthority : grantedAuthorities) {
+            PermissionEnum permission = permissionByName.get(grantedAuthority.getAuthority());
+            if (permission != null) {
+                permissions.add(permission);
+            }
+        }
+        return permissions;
+    }
+
+    public List<GrantedAuthority> fromMask(long mask) {
+        // Bits of permissions unknown to this version are ignored
+        long knownMask = mask & KNOWN_PERMISSIONS_MASK;
+        List<GrantedAuthority> authorities = authoritiesByMask.get(knownMask);
+        if (authorities == null) {
+            authorities = this.toAuthorities(knownMask);
+            if (authoritiesByMask.size() < MAX_CACHED_MASKS) {
+                authoritiesByMask.putIfAbsent(knownMask, authorities);
+            }
+        }
+        return authorities;
+    }
+
+    private List<GrantedAuthority> toAuthorities(long mask) {
+        List<GrantedAuthority> authorities = new ArrayList<>(Long.bitCount(mask));
+        for (PermissionEnum permission : PERMISSIONS) {
+            if ((mask & (1L << permission.ordinal())) != 0) {
+                authorities.add(authorityByPermission[permission.ordinal()]);
+            }
+        }
+        return Collections.unmodifiableList(authorities);
+    }
+
+    private List<GrantedAuthority> decodeLegacy(Claims claims) {
+        Object authorities = claims.get(LEGACY_AUTHORITIES_CLAIM);
+        if (!(authorities instanceof Collection)) {
+            return Collections.emptyList();
+        }
+
+        List<GrantedAuthority> grantedAuthorities = new ArrayList<>();
+        for (Object authority : (Collection<?>) authorities) {
+            String name = String.valueOf(authority);
+            grantedAuthorities.add(authorityByName.getOrDefault(name, new SimpleGrantedAuthority(name)));
+        }
+        return grantedAuthorities;
+    }
+}
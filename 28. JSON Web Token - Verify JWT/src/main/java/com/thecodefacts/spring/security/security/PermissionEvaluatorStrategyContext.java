@@ -1,35 +1,84 @@
 package com.thecodefacts.spring.security.security;
 
+import com.thecodefacts.spring.security.enums.PermissionEnum;
+import org.hibernate.proxy.HibernateProxy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
+/*
+ * Registry of the permission evaluators, built once at startup and keyed both by target class and by type name.
+ * Lookups by object resolve the entity class behind a Hibernate proxy, and fall back to the closest registered
+ * superclass, which is resolved once per class. Two evaluators registered for the same type fail the startup.
+ */
 @Component
 public class PermissionEvaluatorStrategyContext implements PermissionEvaluator {
     @Autowired
     private List<PermissionEvaluatorStrategy> strategies;
 
+    private Map<Class<?>, PermissionEvaluator> evaluatorsByType;
+
+    private Map<String, PermissionEvaluator> evaluatorsByTypeName;
+
+    // Resolved on the first lookup of each class, e.g. a subclass or a proxy class
+    private final ClassValue<PermissionEvaluator> evaluatorsByResolvedType = new ClassValue<PermissionEvaluator>() {
+        @Override
+        protected PermissionEvaluator computeValue(Class<?> type) {
+            for (Class<?> superType = type; superType != null; superType = superType.getSuperclass()) {
+                PermissionEvaluator permissionEvaluator = evaluatorsByType.get(superType);
+                if (permissionEvaluator != null) {
+                    return permissionEvaluator;
+                }
+            }
+            return null;
+        }
+    };
+
+    @PostConstruct
+    public void init() {
+        Map<Class<?>, PermissionEvaluator> byType = new HashMap<>();
+        Map<String, PermissionEvaluator> byTypeName = new HashMap<>();
+        for (PermissionEvaluatorStrategy<?> strategy : strategies) {
+            Class<?> targetType = strategy.getTargetType();
+            register(byType, targetType, strategy, targetType.getName());
+            register(byTypeName, normalise(targetType.getSimpleName()), strategy, targetType.getName());
+            register(byTypeName, normalise(targetType.getName()), strategy, targetType.getName());
+        }
+        evaluatorsByType = Collections.unmodifiableMap(byType);
+        evaluatorsByTypeName = Collections.unmodifiableMap(byTypeName);
+    }
+
     public PermissionEvaluator getPermissionEvaluator(String name) {
-        return strategies.stream()
-                .filter(strategy ->
-                        strategy.getTargetType()
-                                .getSimpleName()
-                                .equalsIgnoreCase(name)
-                )
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException(String.format("No permission evaluator found for the class %s", name)));
+        PermissionEvaluator permissionEvaluator = name != null ? evaluatorsByTypeName.get(normalise(name)) : null;
+        if (permissionEvaluator == null) {
+            throw new RuntimeException(String.format("No permission evaluator found for the class %s", name));
+        }
+        return permissionEvaluator;
+    }
+
+    public PermissionEvaluator getPermissionEvaluator(Object targetDomainObject) {
+        Class<?> targetType = getEntityClass(targetDomainObject);
+        PermissionEvaluator permissionEvaluator = evaluatorsByResolvedType.get(targetType);
+        if (permissionEvaluator == null) {
+            throw new RuntimeException(String.format("No permission evaluator found for the class %s", targetType.getSimpleName()));
+        }
+        return permissionEvaluator;
     }
 
     @Override
     public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
         if (targetDomainObject != null) {
-            String targetType = targetDomainObject.getClass().getSimpleName();
             if (hasAuthority(authentication, permission)) {
-                return getPermissionEvaluator(targetType).hasPermission(authentication, targetDomainObject, permission);
+                return getPermissionEvaluator(targetDomainObject).hasPermission(authentication, targetDomainObject, permission);
             }
         }
         return false;
@@ -47,7 +96,12 @@ public class PermissionEvaluatorStrategyContext implements PermissionEvaluator {
 
     private boolean hasAuthority(Authentication authentication, Object permission) {
         if (permission != null) {
-            String strPermission = (String) permission;
+            PermissionEnum permissionEnum = AppPrincipal.toPermission(permission);
+            if (permissionEnum != null && authentication.getPrincipal() instanceof AppPrincipal) {
+                return ((AppPrincipal) authentication.getPrincipal()).hasPermission(permissionEnum);
+            }
+            // Any other principal is checked against its granted authorities
+            String strPermission = permission.toString();
             return authentication.getAuthorities()
                     .stream()
                     .anyMatch(grantedAuthority ->
@@ -56,4 +110,24 @@ public class PermissionEvaluatorStrategyContext implements PermissionEvaluator {
         }
         return false;
     }
+
+    private static <K> void register(Map<K, PermissionEvaluator> evaluators, K key, PermissionEvaluator permissionEvaluator, String targetType) {
+        PermissionEvaluator registered = evaluators.putIfAbsent(key, permissionEvaluator);
+        if (registered != null && registered != permissionEvaluator) {
+            throw new IllegalStateException(String.format("Permission evaluators %s and %s are both registered for %s",
+                    registered.getClass().getSimpleName(), permissionEvaluator.getClass().getSimpleName(), targetType));
+        }
+    }
+
+    private static String normalise(String typeName) {
+        return typeName.toLowerCase(Locale.ROOT);
+    }
+
+    // Reads the entity class from a lazy loading proxy without initialising it
+    private static Class<?> getEntityClass(Object targetDomainObject) {
+        if (targetDomainObject instanceof HibernateProxy) {
+            return ((HibernateProxy) targetDomainObject).getHibernateLazyInitializer().getPersistentClass();
+        }
+        return targetDomainObject.getClass();
+    }
 }
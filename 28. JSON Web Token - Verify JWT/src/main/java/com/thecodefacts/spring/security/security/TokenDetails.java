@@ -0,0 +1,17 @@
+package com.thecodefacts.spring.security.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+// Details of the verified access token, kept on the Authentication built from it
+@Getter
+@AllArgsConstructor
+public class TokenDetails {
+    private final String jti;
+
+    private final Date issueTime;
+
+    private final Date expiryTime;
+}
@@ -0,0 +1,23 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.enums.TokenRejectionReason;
+import org.springframework.security.core.AuthenticationException;
+
+// Thrown for every rejected bearer token. The stack trace is never filled in, as the reason is all that is reported.
+public class TokenRejectedException extends AuthenticationException {
+    private final TokenRejectionReason reason;
+
+    public TokenRejectedException(TokenRejectionReason reason) {
+        super(reason.getDescription());
+        this.reason = reason;
+    }
+
+    public TokenRejectionReason getReason() {
+        return reason;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,15 @@
+package com.thecodefacts.spring.security.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Published when the password or the roles of a user change, or with no username when a role changes for all its users
+@Getter
+@AllArgsConstructor
+public class UserDetailsChangedEvent {
+    private final String username;
+
+    public static UserDetailsChangedEvent allUsers() {
+        return new UserDetailsChangedEvent(null);
+    }
+}
@@ -0,0 +1,81 @@
+package com.thecodefacts.spring.security.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.thecodefacts.spring.security.config.JWTConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Maps an already verified JWT to the Authentication built from it, until the token expires
+@Component
+public class VerifiedTokenCache {
+    @Autowired
+    private JWTConfig jwtConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, VerifiedToken> cache;
+
+    @PostConstruct
+    public void init() {
+        if (jwtConfig.isCacheEnabled()) {
+            cache = Caffeine.newBuilder()
+                    .maximumSize(jwtConfig.getCacheMaximumSize())
+                    .expireAfter(new TokenExpiry())
+                    .recordStats()
+                    .build();
+            // Publishes cache.gets (hit/miss), cache.evictions and cache.size under the name below
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwtVerifiedTokens");
+        }
+    }
+
+    public Authentication get(String accessToken) {
+        if (cache == null) {
+            return null;
+        }
+        VerifiedToken verifiedToken = cache.getIfPresent(TokenDigest.sha256(accessToken));
+        return verifiedToken != null ? verifiedToken.authentication : null;
+    }
+
+    public void put(String accessToken, Authentication authentication, Date expiryTime) {
+        if (cache != null && expiryTime != null) {
+            // Keyed by the token digest, so the cache never holds usable bearer tokens
+            cache.put(TokenDigest.sha256(accessToken), new VerifiedToken(authentication, expiryTime.getTime()));
+        }
+    }
+
+    @AllArgsConstructor
+    private static class VerifiedToken {
+        private final Authentication authentication;
+
+        private final long expiryTimeMillis;
+    }
+
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.expiryTimeMillis - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return this.expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,23 +1,38 @@
 package com.thecodefacts.spring.security.service;
 
 import com.thecodefacts.spring.security.config.JWTConfig;
+import com.thecodefacts.spring.security.domain.AppRefreshToken;
 import com.thecodefacts.spring.security.security.AuthenticationFacade;
+import com.thecodefacts.spring.security.security.JwtKey;
+import com.thecodefacts.spring.security.security.JwtKeyring;
+import com.thecodefacts.spring.security.security.LoginExecutor;
+import com.thecodefacts.spring.security.security.PermissionClaimCodec;
+import com.thecodefacts.spring.security.security.TokenDetails;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.Jwts;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 public class AuthenticationService {
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private LoginExecutor loginExecutor;
 
     @Autowired
     private AuthenticationFacade authenticationFacade;
@@ -25,30 +40,86 @@ public class AuthenticationService {
     @Autowired
     private JWTConfig jwtConfig;
 
-    public String generateToken(String username, String password) {
+    @Autowired
+    private JwtKeyring jwtKeyring;
+
+    @Autowired
+    private PermissionClaimCodec permissionClaimCodec;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    private final UserDetailsChecker userDetailsChecker = new AccountStatusUserDetailsChecker();
+
+    public Map<String, String> generateToken(String username, String password) {
         Authentication authentication = UsernamePasswordAuthenticationToken.unauthenticated(username, password);
-        authentication = authenticationManager.authenticate(authentication);
+        authentication = loginExecutor.authenticate(authentication);
 
-        String accessToken = null;
+        Map<String, String> tokenResponse = new HashMap<>();
         if (authentication.isAuthenticated()) {
             authenticationFacade.setAuthentication(authentication);
 
-            accessToken = Jwts.builder()
-                    .setSubject(authentication.getName())
-                    .setIssuedAt(jwtConfig.getIssueTime())
-                    .setExpiration(jwtConfig.getExpiryTime(jwtConfig.getIssueTime()))
-                    .setId(UUID.randomUUID().toString())
-                    .addClaims(
-                            Collections.singletonMap("authorities", authentication.getAuthorities()
-                                    .stream()
-                                    .map(GrantedAuthority::getAuthority)
-                                    .collect(Collectors.toList())
-                            )
-                    )
-                    .signWith(jwtConfig.getSecretKey(), jwtConfig.getSignatureAlgorithm())
-                    .compact();
+            tokenResponse.put("accessToken", this.createAccessToken(authentication.getName(), authentication.getAuthorities()));
+            // A new family of refresh tokens starts with every login
+            tokenResponse.put("refreshToken", refreshTokenService.issue(authentication.getName(),
+                    permissionClaimCodec.toMask(authentication.getAuthorities()), UUID.randomUUID().toString()));
         }
 
-        return accessToken;
+        return tokenResponse;
+    }
+
+    // Exchanges a refresh token for a new access token and a new refresh token, without checking the password again
+    @Transactional(noRollbackFor = AuthenticationException.class)
+    public Map<String, String> refreshToken(String refreshToken) {
+        AppRefreshToken appRefreshToken = refreshTokenService.consume(refreshToken);
+
+        // Permissions are loaded again rather than copied from the refresh token, so a demoted user loses them
+        // with its next refresh, and a deleted or disabled user cannot refresh at all
+        UserDetails userDetails = this.loadUser(appRefreshToken.getUsername());
+        Collection<? extends GrantedAuthority> authorities = userDetails.getAuthorities();
+
+        Map<String, String> tokenResponse = new HashMap<>();
+        tokenResponse.put("accessToken", this.createAccessToken(userDetails.getUsername(), authorities));
+        tokenResponse.put("refreshToken", refreshTokenService.issue(userDetails.getUsername(),
+                permissionClaimCodec.toMask(authorities), appRefreshToken.getFamilyId()));
+        return tokenResponse;
+    }
+
+    // Revokes the access token of the current request until it expires
+    public void invalidateToken() {
+        TokenDetails tokenDetails = (TokenDetails) authenticationFacade.getAuthentication().getDetails();
+        if (tokenDetails.getJti() != null) {
+            tokenRevocationService.revoke(tokenDetails.getJti(), tokenDetails.getExpiryTime());
+        }
+    }
+
+    private UserDetails loadUser(String username) {
+        UserDetails userDetails;
+        try {
+            userDetails = userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            throw new BadCredentialsException("User of the refresh token no longer exists");
+        }
+        userDetailsChecker.check(userDetails);
+        return userDetails;
+    }
+
+    private String createAccessToken(String username, Collection<? extends GrantedAuthority> authorities) {
+        JwtKey signingKey = jwtKeyring.getActiveKey();
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.getKeyId())
+                .setSubject(username)
+                .setIssuedAt(jwtConfig.getIssueTime())
+                .setExpiration(jwtConfig.getExpiryTime(jwtConfig.getIssueTime()))
+                .setId(UUID.randomUUID().toString())
+                .addClaims(permissionClaimCodec.encode(authorities))
+                .signWith(signingKey.getSigningKey(), signingKey.getAlgorithm())
+                .compact();
     }
 }
@@ -1,40 +1,62 @@
 package com.thecodefacts.spring.security.service;
 
-import com.thecodefacts.spring.security.domain.AppRole;
-import com.thecodefacts.spring.security.domain.AppUser;
+import com.thecodefacts.spring.security.enums.RoleEnum;
 import com.thecodefacts.spring.security.repo.AppUserRepository;
+import com.thecodefacts.spring.security.repo.UserRoleView;
+import com.thecodefacts.spring.security.security.AppPrincipal;
+import com.thecodefacts.spring.security.security.RolePermissionMatrix;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Set;
-import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import java.util.EnumSet;
+import java.util.List;
 
 @Service
 public class DbUserDetailsService implements UserDetailsService {
     @Autowired
     private AppUserRepository appUserRepository;
 
+    @Autowired
+    private RolePermissionMatrix rolePermissionMatrix;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Only timed on a user cache miss, as the DaoAuthenticationProvider checks the cache first
+    private Timer loadTimer;
+
+    @PostConstruct
+    public void init() {
+        loadTimer = Timer.builder("user.details.load")
+                .description("Time taken to load a user and its roles from the database")
+                .register(meterRegistry);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        AppUser appUser = appUserRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException(String.format("User %s not found", username)));
-
-        return User.builder()
-                .username(appUser.getUsername())
-                .password(appUser.getPassword())
-                .authorities(this.getPermissions(appUser.getRoles()))
-                .build();
+        return loadTimer.record(() -> this.loadAppUser(username));
     }
 
-    private String[] getPermissions(Set<AppRole> roles) {
-        return roles.stream()
-                .flatMap(role -> role.getPermissions().stream())
-                .map(permission -> permission.getName().name())
-                .collect(Collectors.toSet())
-                .toArray(new String[0]);
+    private UserDetails loadAppUser(String username) {
+        List<UserRoleView> userRoles = appUserRepository.findRolesByUsername(username);
+        if (userRoles.isEmpty()) {
+            throw new UsernameNotFoundException(String.format("User %s not found", username));
+        }
+
+        EnumSet<RoleEnum> roles = EnumSet.noneOf(RoleEnum.class);
+        for (UserRoleView userRole : userRoles) {
+            if (userRole.getRole() != null) {
+                roles.add(userRole.getRole());
+            }
+        }
+        // Permissions are the union of the permission sets of the user roles, as held by the RolePermissionMatrix
+        UserRoleView userRole = userRoles.get(0);
+        return new AppPrincipal(userRole.getUsername(), userRole.getPassword(), roles, rolePermissionMatrix.getPermissions(roles));
     }
 }
@@ -0,0 +1,72 @@
+package com.thecodefacts.spring.security.service;
+
+import com.thecodefacts.spring.security.config.JWTConfig;
+import com.thecodefacts.spring.security.domain.AppRefreshToken;
+import com.thecodefacts.spring.security.repo.AppRefreshTokenRepository;
+import com.thecodefacts.spring.security.security.TokenDigest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+
+@Slf4j
+@Service
+public class RefreshTokenService {
+    private static final int REFRESH_TOKEN_BYTES = 32;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Autowired
+    private AppRefreshTokenRepository appRefreshTokenRepository;
+
+    @Autowired
+    private JWTConfig jwtConfig;
+
+    @Transactional
+    public String issue(String username, long permissions, String familyId) {
+        byte[] randomBytes = new byte[REFRESH_TOKEN_BYTES];
+        secureRandom.nextBytes(randomBytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+
+        appRefreshTokenRepository.save(AppRefreshToken.builder()
+                .tokenHash(TokenDigest.sha256(refreshToken))
+                .familyId(familyId)
+                .username(username)
+                .permissions(permissions)
+                .expiryTime(jwtConfig.getRefreshExpiryTime(jwtConfig.getIssueTime()))
+                .build());
+        return refreshToken;
+    }
+
+    // Marks the refresh token as used. Presenting an already used token revokes every token of its family,
+    // as either the client or an attacker holds a stolen copy.
+    @Transactional(noRollbackFor = AuthenticationException.class)
+    public AppRefreshToken consume(String refreshToken) {
+        AppRefreshToken appRefreshToken = appRefreshTokenRepository.findByTokenHash(TokenDigest.sha256(refreshToken))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+
+        if (appRefreshToken.getExpiryTime().before(new Date())) {
+            throw new BadCredentialsException("Refresh token expired");
+        }
+        if (appRefreshToken.isUsed() || appRefreshTokenRepository.markUsed(appRefreshToken.getId()) == 0) {
+            int revoked = appRefreshTokenRepository.deleteByFamilyId(appRefreshToken.getFamilyId());
+            log.warn("Refresh token reused for user {}, revoked {} tokens of its family", appRefreshToken.getUsername(), revoked);
+            throw new BadCredentialsException("Refresh token already used");
+        }
+        return appRefreshToken;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.token.refresh-token-purge-interval-in-millis:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = appRefreshTokenRepository.deleteExpiredBefore(new Date());
+        log.debug("Purged {} expired refresh tokens", purged);
+    }
+}
@@ -0,0 +1,91 @@
+package com.thecodefacts.spring.security.service;
+
+import com.thecodefacts.spring.security.config.JWTConfig;
+import com.thecodefacts.spring.security.domain.AppUser;
+import com.thecodefacts.spring.security.domain.TokenEpochChange;
+import com.thecodefacts.spring.security.repo.AppRefreshTokenRepository;
+import com.thecodefacts.spring.security.repo.AppUserRepository;
+import com.thecodefacts.spring.security.repo.TokenEpochChangeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Per user "tokens valid after" time, to revoke every token of a user at once.
+ * The time is stored on AppUser and recorded in token_epoch_change, which every node polls into an in-memory map.
+ * An entry is only needed until the tokens issued before it have expired, so both the map and the change table
+ * only ever hold the changes of the last access token lifetime.
+ */
+@Slf4j
+@Service
+public class TokenEpochService {
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private TokenEpochChangeRepository tokenEpochChangeRepository;
+
+    @Autowired
+    private AppRefreshTokenRepository appRefreshTokenRepository;
+
+    @Autowired
+    private JWTConfig jwtConfig;
+
+    private final Map<String, Long> tokensValidAfterByUsername = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        this.poll();
+    }
+
+    public boolean isRevoked(String username, Date issueTime) {
+        Long tokensValidAfter = tokensValidAfterByUsername.get(username);
+        if (tokensValidAfter == null) {
+            return false;
+        }
+        return issueTime == null || issueTime.getTime() < tokensValidAfter;
+    }
+
+    @Transactional
+    public void revokeAllTokens(AppUser appUser) {
+        // iat has a precision of seconds, so the time is rounded up to also cover the tokens issued earlier in this second
+        long now = System.currentTimeMillis();
+        Date tokensValidAfter = new Date((now / 1000 + 1) * 1000);
+
+        appUserRepository.updateTokensValidAfter(appUser.getId(), tokensValidAfter);
+        tokenEpochChangeRepository.save(TokenEpochChange.builder()
+                .username(appUser.getUsername())
+                .tokensValidAfter(tokensValidAfter)
+                .build());
+        // Refresh tokens would otherwise keep issuing new access tokens
+        appRefreshTokenRepository.deleteByUsername(appUser.getUsername());
+
+        tokensValidAfterByUsername.merge(appUser.getUsername(), tokensValidAfter.getTime(), Math::max);
+        log.info("Revoked all the tokens of user {} issued before {}", appUser.getUsername(), tokensValidAfter);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.token.epoch-poll-interval-in-millis:5000}")
+    public void poll() {
+        long oldestRelevant = System.currentTimeMillis() - jwtConfig.getMaximumTokenAgeInMillis();
+        for (TokenEpochChange change : tokenEpochChangeRepository.findByTokensValidAfterGreaterThan(new Date(oldestRelevant))) {
+            tokensValidAfterByUsername.merge(change.getUsername(), change.getTokensValidAfter().getTime(), Math::max);
+        }
+        // Every token issued before these times has expired by now
+        tokensValidAfterByUsername.values().removeIf(tokensValidAfter -> tokensValidAfter < oldestRelevant);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.token.epoch-purge-interval-in-millis:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        long oldestRelevant = System.currentTimeMillis() - jwtConfig.getMaximumTokenAgeInMillis();
+        int purged = tokenEpochChangeRepository.deleteOlderThan(new Date(oldestRelevant));
+        log.debug("Purged {} token epoch changes", purged);
+    }
+}
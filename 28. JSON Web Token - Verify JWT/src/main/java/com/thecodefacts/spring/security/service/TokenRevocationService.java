@@ -0,0 +1,112 @@
+package com.thecodefacts.spring.security.service;
+
+import com.thecodefacts.spring.security.config.JWTConfig;
+import com.thecodefacts.spring.security.domain.RevokedToken;
+import com.thecodefacts.spring.security.repo.RevokedTokenRepository;
+import com.thecodefacts.spring.security.security.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.Date;
+import java.util.List;
+
+/*
+ * Denylist of revoked access tokens by jti, persisted in revoked_token and fronted by an in-memory Bloom filter.
+ * Tokens the filter has never seen are accepted without a database round trip. Only filter hits, which are the
+ * revoked tokens and the rare false positives, are confirmed against the database.
+ * The filter is rebuilt from the database on every refresh, which picks up revocations made on other nodes
+ * and drops the expired ones.
+ * A revoked jti is only added to the filter once its row is committed, and is also added to a filter being rebuilt,
+ * whose query may have run before that commit.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.001;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private JWTConfig jwtConfig;
+
+    private volatile BloomFilter revokedJtis;
+
+    private final Object revokeLock = new Object();
+
+    // Filter being rebuilt, which also receives the jtis revoked in the meantime
+    private BloomFilter rebuiltJtis;
+
+    @PostConstruct
+    public void init() {
+        this.refresh();
+    }
+
+    public boolean isRevoked(String jti) {
+        // Tokens without a jti were issued before revocation was supported, and cannot be revoked
+        if (jti == null || !revokedJtis.mightContain(jti)) {
+            return false;
+        }
+        return revokedTokenRepository.existsById(jti);
+    }
+
+    @Transactional
+    public void revoke(String jti, Date expiryTime) {
+        revokedTokenRepository.save(RevokedToken.builder().jti(jti).expiryTime(expiryTime).build());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    TokenRevocationService.this.addRevoked(jti);
+                }
+            });
+        } else {
+            this.addRevoked(jti);
+        }
+    }
+
+    private void addRevoked(String jti) {
+        synchronized (revokeLock) {
+            revokedJtis.put(jti);
+            if (rebuiltJtis != null) {
+                rebuiltJtis.put(jti);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.token.revocation-refresh-interval-in-millis:5000}")
+    public synchronized void refresh() {
+        BloomFilter bloomFilter = new BloomFilter(jwtConfig.getRevocationExpectedEntries(), FALSE_POSITIVE_PROBABILITY);
+        synchronized (revokeLock) {
+            rebuiltJtis = bloomFilter;
+        }
+        try {
+            List<String> jtis = revokedTokenRepository.findJtisExpiringAfter(new Date());
+            if (jtis.size() > jwtConfig.getRevocationExpectedEntries()) {
+                log.warn("{} revoked tokens exceed the {} expected entries, the Bloom filter false positive rate will increase",
+                        jtis.size(), jwtConfig.getRevocationExpectedEntries());
+            }
+            jtis.forEach(bloomFilter::put);
+            synchronized (revokeLock) {
+                revokedJtis = bloomFilter;
+            }
+        } finally {
+            synchronized (revokeLock) {
+                rebuiltJtis = null;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.token.revocation-purge-interval-in-millis:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = revokedTokenRepository.deleteExpiredBefore(new Date());
+        log.debug("Purged {} expired revoked tokens", purged);
+    }
+}
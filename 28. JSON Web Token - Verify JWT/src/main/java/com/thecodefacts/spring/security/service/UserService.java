@@ -25,6 +25,9 @@ public class UserService {
     @Autowired
     private AppRoleRepository appRoleRepository;
 
+    @Autowired
+    private TokenEpochService tokenEpochService;
+
     @PreAuthorize(Authority.LIST_STUDENTS)
     public List<AppUser> listStudents() {
         return this.listByRoleName(STUDENT);
@@ -51,6 +54,13 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException(String.format("User %s not found", userId)));
     }
 
+    @PreAuthorize(Authority.REVOKE_USER_TOKENS)
+    public void revokeTokens(Long userId) {
+        AppUser appUser = appUserRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException(String.format("User %s not found", userId)));
+        tokenEpochService.revokeAllTokens(appUser);
+    }
+
     @PostAuthorize(Authority.VIEW_PROFILE)
     public AppUser get(String username) {
         return appUserRepository.findByUsername(username)
@@ -0,0 +1,38 @@
+package com.thecodefacts.spring.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+public class KeyPairGeneratorTest {
+    private static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.ES256;
+
+    @Test
+    public void generateBase64EncodedKeyPairStrings() throws Exception {
+        // Generate and Base64 encode to string to store it in disk
+        KeyPair originalKeyPair = Keys.keyPairFor(ALGORITHM);
+        String base64EncodedPrivateKeyString = Base64.getEncoder().encodeToString(originalKeyPair.getPrivate().getEncoded());
+        String base64EncodedPublicKeyString = Base64.getEncoder().encodeToString(originalKeyPair.getPublic().getEncoded());
+        System.out.println("Base64 encoded private and public keys generated below, store the private key in a secure place");
+        System.out.println(base64EncodedPrivateKeyString);
+        System.out.println(base64EncodedPublicKeyString);
+
+        // Base64 decode from string and regenerate PrivateKey and PublicKey
+        KeyFactory keyFactory = KeyFactory.getInstance(ALGORITHM.isRsa() ? "RSA" : "EC");
+        PrivateKey regeneratedPrivateKey = keyFactory.generatePrivate(
+                new PKCS8EncodedKeySpec(Base64.getDecoder().decode(base64EncodedPrivateKeyString)));
+        PublicKey regeneratedPublicKey = keyFactory.generatePublic(
+                new X509EncodedKeySpec(Base64.getDecoder().decode(base64EncodedPublicKeyString)));
+
+        assert originalKeyPair.getPrivate().equals(regeneratedPrivateKey);
+        assert originalKeyPair.getPublic().equals(regeneratedPublicKey);
+    }
+}
@@ -0,0 +1,108 @@
+package com.thecodefacts.spring.security.benchmark;
+
+import com.thecodefacts.spring.security.config.JWTConfig;
+import com.thecodefacts.spring.security.config.LoginExecutorConfig;
+import com.thecodefacts.spring.security.domain.AppRefreshToken;
+import com.thecodefacts.spring.security.repo.AppRefreshTokenRepository;
+import com.thecodefacts.spring.security.security.AuthenticationFacade;
+import com.thecodefacts.spring.security.security.LoginExecutor;
+import com.thecodefacts.spring.security.security.PermissionClaimCodec;
+import com.thecodefacts.spring.security.service.AuthenticationService;
+import com.thecodefacts.spring.security.service.RefreshTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.thecodefacts.spring.security.enums.PermissionEnum.PLAY_COURSE;
+import static com.thecodefacts.spring.security.enums.PermissionEnum.VIEW_PROFILE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+// Token issuing cost without the password check, which is stubbed out of the AuthenticationManager run by the LoginExecutor,
+// and token renewal with a refresh token, with the refresh token repository and the user lookup stubbed in memory
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationServiceBenchmark {
+    private AuthenticationService authenticationService;
+
+    private LoginExecutor loginExecutor;
+
+    @Setup
+    public void setup() {
+        JWTConfig jwtConfig = BenchmarkFixtures.jwtConfig(false);
+        AuthenticationManager authenticationManager = authentication -> UsernamePasswordAuthenticationToken.authenticated(
+                authentication.getName(), null, BenchmarkFixtures.authorities(PLAY_COURSE, VIEW_PROFILE)
+        );
+
+        loginExecutor = new LoginExecutor();
+        setField(loginExecutor, "authenticationManager", authenticationManager);
+        setField(loginExecutor, "loginExecutorConfig", new LoginExecutorConfig());
+        setField(loginExecutor, "meterRegistry", new SimpleMeterRegistry());
+        loginExecutor.init();
+
+        authenticationService = new AuthenticationService();
+        setField(authenticationService, "loginExecutor", loginExecutor);
+        setField(authenticationService, "authenticationFacade", new AuthenticationFacade());
+        setField(authenticationService, "jwtConfig", jwtConfig);
+        setField(authenticationService, "jwtKeyring", BenchmarkFixtures.jwtKeyring(jwtConfig));
+        setField(authenticationService, "permissionClaimCodec", new PermissionClaimCodec());
+        // The user is loaded again on every refresh, stubbed here like the password check
+        setField(authenticationService, "userDetailsService", (UserDetailsService) username -> User.withUsername(username)
+                .password("{noop}password")
+                .authorities(BenchmarkFixtures.authorities(PLAY_COURSE, VIEW_PROFILE))
+                .build());
+
+        AppRefreshTokenRepository appRefreshTokenRepository = mock(AppRefreshTokenRepository.class);
+        when(appRefreshTokenRepository.save(any(AppRefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(appRefreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(AppRefreshToken.builder()
+                .id(1L)
+                .familyId(UUID.randomUUID().toString())
+                .username("Bob")
+                .permissions(new PermissionClaimCodec().toMask(BenchmarkFixtures.authorities(PLAY_COURSE, VIEW_PROFILE)))
+                .expiryTime(new Date(System.currentTimeMillis() + 3_600_000))
+                .build()));
+        when(appRefreshTokenRepository.markUsed(anyLong())).thenReturn(1);
+
+        RefreshTokenService refreshTokenService = new RefreshTokenService();
+        setField(refreshTokenService, "appRefreshTokenRepository", appRefreshTokenRepository);
+        setField(refreshTokenService, "jwtConfig", jwtConfig);
+        setField(authenticationService, "refreshTokenService", refreshTokenService);
+    }
+
+    @TearDown
+    public void tearDown() {
+        loginExecutor.shutdown();
+    }
+
+    @Benchmark
+    public Map<String, String> refreshToken() {
+        return authenticationService.refreshToken("refresh-token");
+    }
+
+    @Benchmark
+    public Map<String, String> generateToken() {
+        try {
+            return authenticationService.generateToken("Bob", "password");
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
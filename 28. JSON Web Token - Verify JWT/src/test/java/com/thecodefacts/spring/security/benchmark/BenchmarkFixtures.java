@@ -0,0 +1,177 @@
+package com.thecodefacts.spring.security.benchmark;
+
+import com.thecodefacts.spring.security.config.JWTConfig;
+import com.thecodefacts.spring.security.domain.AppPermission;
+import com.thecodefacts.spring.security.domain.AppRole;
+import com.thecodefacts.spring.security.domain.AppUser;
+import com.thecodefacts.spring.security.domain.Course;
+import com.thecodefacts.spring.security.enums.PermissionEnum;
+import com.thecodefacts.spring.security.enums.RoleEnum;
+import com.thecodefacts.spring.security.repo.AppRoleRepository;
+import com.thecodefacts.spring.security.repo.RolePermissionView;
+import com.thecodefacts.spring.security.repo.UserRoleView;
+import com.thecodefacts.spring.security.security.JwtKeyring;
+import com.thecodefacts.spring.security.security.JwtVerifier;
+import com.thecodefacts.spring.security.security.PermissionClaimCodec;
+import com.thecodefacts.spring.security.security.RolePermissionMatrix;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.thecodefacts.spring.security.enums.PermissionEnum.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+// Builds the beans and the domain objects used by the benchmarks, without starting the application
+public class BenchmarkFixtures {
+    public static final String BASE64_ENCODED_SECRET_KEY = "/EbiawupzOqD8MlXgzlRetQfLL5vbD65jE6Q2MJF/Gg=";
+
+    public static JWTConfig jwtConfig(boolean cacheEnabled) {
+        JWTConfig jwtConfig = new JWTConfig();
+        jwtConfig.setBase64EncodedSecretKey(BASE64_ENCODED_SECRET_KEY);
+        jwtConfig.setExpiryInSeconds(600);
+        jwtConfig.setRefreshExpiryInSeconds(1_209_600);
+        jwtConfig.setSigningAlgorithm("HS256");
+        jwtConfig.setCacheEnabled(cacheEnabled);
+        jwtConfig.setHmacFastPathEnabled(true);
+        return jwtConfig;
+    }
+
+    public static JwtKeyring jwtKeyring(JWTConfig jwtConfig) {
+        return jwtConfig.jwtKeyring(new SimpleMeterRegistry());
+    }
+
+    public static JwtVerifier jwtVerifier(JWTConfig jwtConfig, JwtKeyring jwtKeyring) {
+        return jwtConfig.jwtVerifier(jwtKeyring);
+    }
+
+    public static Collection<GrantedAuthority> authorities(PermissionEnum... permissions) {
+        return Arrays.stream(permissions)
+                .map(permission -> new SimpleGrantedAuthority(permission.name()))
+                .collect(Collectors.toList());
+    }
+
+    // Same claims as AuthenticationService.generateToken, with the given expiry time
+    public static String accessToken(JWTConfig jwtConfig, JwtKeyring jwtKeyring, Date expiryTime) {
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, jwtKeyring.getActiveKey().getKeyId())
+                .setSubject("Bob")
+                .setIssuedAt(jwtConfig.getIssueTime())
+                .setExpiration(expiryTime)
+                .setId(UUID.randomUUID().toString())
+                .addClaims(new PermissionClaimCodec().encode(authorities(PLAY_COURSE, VIEW_PROFILE)))
+                .signWith(jwtKeyring.getActiveKey().getSigningKey(), jwtKeyring.getActiveKey().getAlgorithm())
+                .compact();
+    }
+
+    public static AppRole role(RoleEnum name, PermissionEnum... permissions) {
+        Set<AppPermission> appPermissions = Arrays.stream(permissions)
+                .map(permission -> AppPermission.builder().id((long) permission.ordinal()).name(permission).build())
+                .collect(Collectors.toSet());
+        return AppRole.builder().id((long) name.ordinal()).name(name).permissions(appPermissions).build();
+    }
+
+    public static AppUser student(Course... enrolledCourses) {
+        return AppUser.builder()
+                .id(1L)
+                .username("Bob")
+                .password("{noop}password")
+                .roles(Collections.singleton(role(RoleEnum.STUDENT, PLAY_COURSE, VIEW_PROFILE)))
+                .enrolledCourses(Stream.of(enrolledCourses).collect(Collectors.toSet()))
+                .build();
+    }
+
+    public static AppUser instructor() {
+        return AppUser.builder()
+                .id(2L)
+                .username("Gru")
+                .password("{noop}password")
+                .roles(Stream.of(
+                        role(RoleEnum.INSTRUCTOR, CREATE_COURSE, UPDATE_COURSE, PLAY_COURSE, VIEW_PROFILE),
+                        role(RoleEnum.STUDENT, PLAY_COURSE, VIEW_PROFILE)
+                ).collect(Collectors.toSet()))
+                .build();
+    }
+
+    // Rows of AppUserRepository.findRolesByUsername for the given user, one per role
+    public static List<UserRoleView> userRoles(AppUser appUser) {
+        return appUser.getRoles().stream()
+                .map(role -> userRole(appUser, role.getName()))
+                .collect(Collectors.toList());
+    }
+
+    // Rows of AppRoleRepository.findRolePermissions for the given roles, one per permission of each role
+    public static List<RolePermissionView> rolePermissions(AppRole... roles) {
+        return Arrays.stream(roles)
+                .flatMap(role -> role.getPermissions().stream()
+                        .map(permission -> rolePermission(role.getName(), permission.getName())))
+                .collect(Collectors.toList());
+    }
+
+    // Matrix of the roles of the fixtures, loaded from the stubbed AppRoleRepository
+    public static RolePermissionMatrix rolePermissionMatrix() {
+        AppRoleRepository appRoleRepository = mock(AppRoleRepository.class);
+        when(appRoleRepository.findRolePermissions()).thenReturn(rolePermissions(
+                role(RoleEnum.INSTRUCTOR, CREATE_COURSE, UPDATE_COURSE, PLAY_COURSE, VIEW_PROFILE),
+                role(RoleEnum.STUDENT, PLAY_COURSE, VIEW_PROFILE)
+        ));
+        RolePermissionMatrix rolePermissionMatrix = new RolePermissionMatrix();
+        setField(rolePermissionMatrix, "appRoleRepository", appRoleRepository);
+        rolePermissionMatrix.init();
+        return rolePermissionMatrix;
+    }
+
+    private static UserRoleView userRole(AppUser appUser, RoleEnum role) {
+        return new UserRoleView() {
+            @Override
+            public String getUsername() {
+                return appUser.getUsername();
+            }
+
+            @Override
+            public String getPassword() {
+                return appUser.getPassword();
+            }
+
+            @Override
+            public RoleEnum getRole() {
+                return role;
+            }
+        };
+    }
+
+    private static RolePermissionView rolePermission(RoleEnum role, PermissionEnum permission) {
+        return new RolePermissionView() {
+            @Override
+            public RoleEnum getRole() {
+                return role;
+            }
+
+            @Override
+            public PermissionEnum getPermission() {
+                return permission;
+            }
+        };
+    }
+
+    public static Course course(Long id, AppUser createdBy) {
+        return Course.builder()
+                .id(id)
+                .name("Spring Boot Fundamentals")
+                .createdBy(createdBy)
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.thecodefacts.spring.security.benchmark;
+
+import com.thecodefacts.spring.security.repo.AppUserRepository;
+import com.thecodefacts.spring.security.service.DbUserDetailsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+// Cost of building the UserDetails and its permissions, with the repository stubbed in memory
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DbUserDetailsServiceBenchmark {
+    private DbUserDetailsService dbUserDetailsService;
+
+    @Setup
+    public void setup() {
+        AppUserRepository appUserRepository = mock(AppUserRepository.class);
+        when(appUserRepository.findRolesByUsername("Gru")).thenReturn(BenchmarkFixtures.userRoles(BenchmarkFixtures.instructor()));
+
+        dbUserDetailsService = new DbUserDetailsService();
+        setField(dbUserDetailsService, "appUserRepository", appUserRepository);
+        setField(dbUserDetailsService, "rolePermissionMatrix", BenchmarkFixtures.rolePermissionMatrix());
+        setField(dbUserDetailsService, "meterRegistry", new SimpleMeterRegistry());
+        dbUserDetailsService.init();
+    }
+
+    // Includes getPermissions, which takes the union of the permission sets of the roles from the matrix
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return dbUserDetailsService.loadUserByUsername("Gru");
+    }
+}
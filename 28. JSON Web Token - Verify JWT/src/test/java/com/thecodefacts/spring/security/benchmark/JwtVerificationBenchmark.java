@@ -0,0 +1,108 @@
+package com.thecodefacts.spring.security.benchmark;
+
+import com.thecodefacts.spring.security.config.JWTConfig;
+import com.thecodefacts.spring.security.security.JwtKeyring;
+import com.thecodefacts.spring.security.security.JwtVerifier;
+import com.thecodefacts.spring.security.security.TokenRejectedException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Compares building the JwtParser on every request against the prebuilt JwtVerifier, with and without the HMAC fast path
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+    private static final String BASE64_ENCODED_SECRET_KEY = "/EbiawupzOqD8MlXgzlRetQfLL5vbD65jE6Q2MJF/Gg=";
+
+    private JWTConfig jwtConfig;
+
+    private JwtKeyring jwtKeyring;
+
+    private JwtVerifier jwtVerifier;
+
+    private JwtVerifier fastPathVerifier;
+
+    private String accessToken;
+
+    // Same header and payload with a different signature
+    private String forgedAccessToken;
+
+    @Setup
+    public void setup() {
+        jwtConfig = new JWTConfig();
+        jwtConfig.setBase64EncodedSecretKey(BASE64_ENCODED_SECRET_KEY);
+        jwtConfig.setExpiryInSeconds(600);
+        jwtConfig.setSigningAlgorithm("HS256");
+        jwtKeyring = jwtConfig.jwtKeyring(new SimpleMeterRegistry());
+        jwtVerifier = jwtConfig.jwtVerifier(jwtKeyring);
+        jwtConfig.setHmacFastPathEnabled(true);
+        fastPathVerifier = jwtConfig.jwtVerifier(jwtKeyring);
+
+        accessToken = Jwts.builder()
+                .setSubject("Bob")
+                .setIssuedAt(jwtConfig.getIssueTime())
+                .setExpiration(jwtConfig.getExpiryTime(jwtConfig.getIssueTime()))
+                .addClaims(Collections.singletonMap("authorities", Collections.singletonList("PLAY_COURSE")))
+                .signWith(jwtKeyring.getActiveKey().getSigningKey(), jwtKeyring.getActiveKey().getAlgorithm())
+                .compact();
+        int signatureStart = accessToken.lastIndexOf('.') + 1;
+        char firstSignatureChar = accessToken.charAt(signatureStart) == 'A' ? 'B' : 'A';
+        forgedAccessToken = accessToken.substring(0, signatureStart) + firstSignatureChar + accessToken.substring(signatureStart + 1);
+    }
+
+    @Benchmark
+    public Claims perRequestParser() {
+        // Previous path: decode the key and build a new parser for every request
+        byte[] base64DecodedKeyBytes = Base64.getDecoder().decode(BASE64_ENCODED_SECRET_KEY);
+        SecretKey secretKey = new SecretKeySpec(base64DecodedKeyBytes, 0,
+                base64DecodedKeyBytes.length, jwtConfig.getSignatureAlgorithm().getJcaName());
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build()
+                .parseClaimsJws(accessToken)
+                .getBody();
+        claims.getExpiration().after(new Date());
+        return claims;
+    }
+
+    @Benchmark
+    public Claims prebuiltVerifier() {
+        return jwtVerifier.verify(accessToken);
+    }
+
+    @Benchmark
+    public Claims fastPathVerifier() {
+        return fastPathVerifier.verify(accessToken);
+    }
+
+    @Benchmark
+    public boolean prebuiltVerifierForged() {
+        return this.rejects(jwtVerifier, forgedAccessToken);
+    }
+
+    @Benchmark
+    public boolean fastPathVerifierForged() {
+        return this.rejects(fastPathVerifier, forgedAccessToken);
+    }
+
+    private boolean rejects(JwtVerifier verifier, String token) {
+        try {
+            verifier.verify(token);
+            return false;
+        } catch (TokenRejectedException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.thecodefacts.spring.security.benchmark;
+
+import com.thecodefacts.spring.security.domain.AppUser;
+import com.thecodefacts.spring.security.domain.Course;
+import com.thecodefacts.spring.security.enums.PermissionEnum;
+import com.thecodefacts.spring.security.enums.RoleEnum;
+import com.thecodefacts.spring.security.repo.AppUserRepository;
+import com.thecodefacts.spring.security.repo.CourseRepository;
+import com.thecodefacts.spring.security.security.AppPrincipal;
+import com.thecodefacts.spring.security.security.AppUserPermissionEvaluator;
+import com.thecodefacts.spring.security.security.CoursePermissionEvaluator;
+import com.thecodefacts.spring.security.security.PermissionEvaluatorStrategy;
+import com.thecodefacts.spring.security.security.PermissionEvaluatorStrategyContext;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.thecodefacts.spring.security.enums.PermissionEnum.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+// Permission checks of the @PreAuthorize/@PostAuthorize expressions, with the repositories stubbed in memory
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PermissionEvaluatorBenchmark {
+    private static final String COURSE = Course.class.getSimpleName();
+
+    private PermissionEvaluatorStrategyContext permissionEvaluatorStrategyContext;
+
+    private Authentication student;
+
+    private Authentication instructor;
+
+    private AppUser studentUser;
+
+    @Setup
+    public void setup() {
+        AppUser instructorUser = BenchmarkFixtures.instructor();
+        Course course = BenchmarkFixtures.course(1L, instructorUser);
+        studentUser = BenchmarkFixtures.student(course);
+
+        CourseRepository courseRepository = mock(CourseRepository.class);
+        when(courseRepository.countEnrollments("Bob", 1L)).thenReturn(1L);
+        when(courseRepository.countCreatedBy("Gru", 1L)).thenReturn(1L);
+        AppUserRepository appUserRepository = mock(AppUserRepository.class);
+        when(appUserRepository.findById(1L)).thenReturn(Optional.of(studentUser));
+
+        CoursePermissionEvaluator coursePermissionEvaluator = new CoursePermissionEvaluator();
+        setField(coursePermissionEvaluator, "courseRepository", courseRepository);
+        AppUserPermissionEvaluator appUserPermissionEvaluator = new AppUserPermissionEvaluator();
+        setField(appUserPermissionEvaluator, "appUserRepository", appUserRepository);
+
+        List<PermissionEvaluatorStrategy> strategies = Arrays.asList(appUserPermissionEvaluator, coursePermissionEvaluator);
+        permissionEvaluatorStrategyContext = new PermissionEvaluatorStrategyContext();
+        setField(permissionEvaluatorStrategyContext, "strategies", strategies);
+        permissionEvaluatorStrategyContext.init();
+
+        // Principals as built by the TokenVerificationFilter from the permissions claim
+        student = this.authentication("Bob", PLAY_COURSE, VIEW_PROFILE);
+        instructor = this.authentication("Gru", CREATE_COURSE, UPDATE_COURSE, PLAY_COURSE, VIEW_PROFILE);
+    }
+
+    private Authentication authentication(String username, PermissionEnum... permissions) {
+        AppPrincipal principal = new AppPrincipal(username, "", EnumSet.noneOf(RoleEnum.class), Arrays.asList(permissions));
+        return UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+    }
+
+    @Benchmark
+    public boolean playCourse() {
+        return permissionEvaluatorStrategyContext.hasPermission(student, 1L, COURSE, PLAY_COURSE.name());
+    }
+
+    @Benchmark
+    public boolean updateCourse() {
+        return permissionEvaluatorStrategyContext.hasPermission(instructor, 1L, COURSE, UPDATE_COURSE.name());
+    }
+
+    @Benchmark
+    public boolean viewProfile() {
+        return permissionEvaluatorStrategyContext.hasPermission(student, studentUser, VIEW_PROFILE.name());
+    }
+}
@@ -0,0 +1,74 @@
+package com.thecodefacts.spring.security.benchmark;
+
+import com.thecodefacts.spring.security.config.JWTConfig;
+import com.thecodefacts.spring.security.security.JwtKeyring;
+import com.thecodefacts.spring.security.security.JwtVerifier;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+// Compares sign and verify throughput of the supported signing algorithms
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureAlgorithmBenchmark {
+    @Param({"HS256", "RS256", "ES256", "ES384"})
+    private String signingAlgorithm;
+
+    private JWTConfig jwtConfig;
+
+    private JwtKeyring jwtKeyring;
+
+    private JwtVerifier jwtVerifier;
+
+    private String accessToken;
+
+    @Setup
+    public void setup() {
+        SignatureAlgorithm algorithm = SignatureAlgorithm.valueOf(signingAlgorithm);
+        jwtConfig = new JWTConfig();
+        jwtConfig.setSigningAlgorithm(signingAlgorithm);
+        jwtConfig.setExpiryInSeconds(600);
+        if (algorithm.isHmac()) {
+            jwtConfig.setBase64EncodedSecretKey(this.base64(Keys.secretKeyFor(algorithm).getEncoded()));
+        } else {
+            KeyPair keyPair = Keys.keyPairFor(algorithm);
+            jwtConfig.setBase64EncodedPrivateKey(this.base64(keyPair.getPrivate().getEncoded()));
+            jwtConfig.setBase64EncodedPublicKey(this.base64(keyPair.getPublic().getEncoded()));
+        }
+        jwtKeyring = jwtConfig.jwtKeyring(new SimpleMeterRegistry());
+        jwtVerifier = jwtConfig.jwtVerifier(jwtKeyring);
+        accessToken = this.sign();
+    }
+
+    @Benchmark
+    public String sign() {
+        return Jwts.builder()
+                .setSubject("Bob")
+                .setIssuedAt(jwtConfig.getIssueTime())
+                .setExpiration(jwtConfig.getExpiryTime(jwtConfig.getIssueTime()))
+                .addClaims(Collections.singletonMap("perms", 36))
+                .signWith(jwtKeyring.getActiveKey().getSigningKey(), jwtKeyring.getActiveKey().getAlgorithm())
+                .compact();
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtVerifier.verify(accessToken);
+    }
+
+    private String base64(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,127 @@
+package com.thecodefacts.spring.security.benchmark;
+
+import com.thecodefacts.spring.security.config.JWTConfig;
+import com.thecodefacts.spring.security.filters.TokenVerificationFilter;
+import com.thecodefacts.spring.security.repo.RevokedTokenRepository;
+import com.thecodefacts.spring.security.repo.TokenEpochChangeRepository;
+import com.thecodefacts.spring.security.security.AuthenticationFacade;
+import com.thecodefacts.spring.security.security.JwtKeyring;
+import com.thecodefacts.spring.security.security.PermissionClaimCodec;
+import com.thecodefacts.spring.security.security.VerifiedTokenCache;
+import com.thecodefacts.spring.security.service.TokenEpochService;
+import com.thecodefacts.spring.security.service.TokenRevocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+// Filter cost for valid, expired, tampered and malformed bearer tokens, with and without the verified token cache
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenVerificationFilterBenchmark {
+    @Param({"false", "true"})
+    private boolean cacheEnabled;
+
+    private TokenVerificationFilter tokenVerificationFilter;
+
+    private String validToken;
+
+    private String expiredToken;
+
+    private String tamperedToken;
+
+    private String malformedToken;
+
+    @Setup
+    public void setup() {
+        JWTConfig jwtConfig = BenchmarkFixtures.jwtConfig(cacheEnabled);
+        JwtKeyring jwtKeyring = BenchmarkFixtures.jwtKeyring(jwtConfig);
+
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+        setField(verifiedTokenCache, "jwtConfig", jwtConfig);
+        setField(verifiedTokenCache, "meterRegistry", new SimpleMeterRegistry());
+        verifiedTokenCache.init();
+
+        // No revoked tokens, so every lookup is answered by the Bloom filter
+        RevokedTokenRepository revokedTokenRepository = mock(RevokedTokenRepository.class);
+        when(revokedTokenRepository.findJtisExpiringAfter(any(Date.class))).thenReturn(Collections.emptyList());
+        TokenRevocationService tokenRevocationService = new TokenRevocationService();
+        setField(tokenRevocationService, "revokedTokenRepository", revokedTokenRepository);
+        setField(tokenRevocationService, "jwtConfig", jwtConfig);
+        tokenRevocationService.init();
+
+        TokenEpochChangeRepository tokenEpochChangeRepository = mock(TokenEpochChangeRepository.class);
+        when(tokenEpochChangeRepository.findByTokensValidAfterGreaterThan(any(Date.class))).thenReturn(Collections.emptyList());
+        TokenEpochService tokenEpochService = new TokenEpochService();
+        setField(tokenEpochService, "tokenEpochChangeRepository", tokenEpochChangeRepository);
+        setField(tokenEpochService, "jwtConfig", jwtConfig);
+        tokenEpochService.init();
+
+        tokenVerificationFilter = new TokenVerificationFilter();
+        setField(tokenVerificationFilter, "authenticationFacade", new AuthenticationFacade());
+        setField(tokenVerificationFilter, "jwtVerifier", BenchmarkFixtures.jwtVerifier(jwtConfig, jwtKeyring));
+        setField(tokenVerificationFilter, "verifiedTokenCache", verifiedTokenCache);
+        setField(tokenVerificationFilter, "permissionClaimCodec", new PermissionClaimCodec());
+        setField(tokenVerificationFilter, "tokenRevocationService", tokenRevocationService);
+        setField(tokenVerificationFilter, "tokenEpochService", tokenEpochService);
+        setField(tokenVerificationFilter, "meterRegistry", new SimpleMeterRegistry());
+        tokenVerificationFilter.init();
+
+        validToken = BenchmarkFixtures.accessToken(jwtConfig, jwtKeyring, jwtConfig.getExpiryTime(jwtConfig.getIssueTime()));
+        expiredToken = BenchmarkFixtures.accessToken(jwtConfig, jwtKeyring, new Date(System.currentTimeMillis() - 60_000));
+        // Same header and signature with a payload claiming another subject
+        String[] segments = validToken.split("\\.");
+        String forgedPayload = BenchmarkFixtures.accessToken(jwtConfig, jwtKeyring, new Date(System.currentTimeMillis() + 120_000)).split("\\.")[1];
+        tamperedToken = segments[0] + "." + forgedPayload + "." + segments[2];
+        // Typical bot traffic, rejected by the structural checks
+        malformedToken = "' OR '1'='1";
+    }
+
+    @Benchmark
+    public MockHttpServletResponse validToken() throws Exception {
+        return this.filter(validToken);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse expiredToken() throws Exception {
+        return this.filter(expiredToken);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse tamperedToken() throws Exception {
+        return this.filter(tamperedToken);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse malformedToken() throws Exception {
+        return this.filter(malformedToken);
+    }
+
+    private MockHttpServletResponse filter(String accessToken) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/students");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            tokenVerificationFilter.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+}
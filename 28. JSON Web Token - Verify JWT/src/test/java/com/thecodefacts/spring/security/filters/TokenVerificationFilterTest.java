@@ -0,0 +1,161 @@
+package com.thecodefacts.spring.security.filters;
+
+import com.thecodefacts.spring.security.benchmark.BenchmarkFixtures;
+import com.thecodefacts.spring.security.config.JWTConfig;
+import com.thecodefacts.spring.security.repo.RevokedTokenRepository;
+import com.thecodefacts.spring.security.repo.TokenEpochChangeRepository;
+import com.thecodefacts.spring.security.security.AppPrincipal;
+import com.thecodefacts.spring.security.security.AuthenticationFacade;
+import com.thecodefacts.spring.security.security.JwtKeyring;
+import com.thecodefacts.spring.security.security.PermissionClaimCodec;
+import com.thecodefacts.spring.security.security.VerifiedTokenCache;
+import com.thecodefacts.spring.security.service.TokenEpochService;
+import com.thecodefacts.spring.security.service.TokenRevocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+
+import static com.thecodefacts.spring.security.enums.PermissionEnum.PLAY_COURSE;
+import static com.thecodefacts.spring.security.enums.PermissionEnum.VIEW_PROFILE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+// Tokens with a well formed structure but undecodable content must be rejected with 401, on both verification paths
+class TokenVerificationFilterTest {
+    // Headers decoding to a JSON array, a JSON string, JSON null and a JSON object without any algorithm
+    private static final String[] MALFORMED_TOKENS = {"WzFd.e30.x", "Ingi.e30.x", "bnVsbA.e30.abcd", "e30.e30.x"};
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void rejectsMalformedTokens(boolean hmacFastPathEnabled) throws Exception {
+        TokenVerificationFilter tokenVerificationFilter = this.tokenVerificationFilter(this.jwtConfig(hmacFastPathEnabled));
+
+        for (String malformedToken : MALFORMED_TOKENS) {
+            MockFilterChain filterChain = new MockFilterChain();
+            MockHttpServletResponse response = this.filter(tokenVerificationFilter, malformedToken, filterChain);
+
+            assertEquals(HttpStatus.UNAUTHORIZED.value(), response.getStatus(), malformedToken);
+            assertTrue(response.getContentAsString().contains("\"reason\":\"MALFORMED\""), malformedToken);
+            assertNull(filterChain.getRequest(), malformedToken);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void acceptsValidToken(boolean hmacFastPathEnabled) throws Exception {
+        JWTConfig jwtConfig = this.jwtConfig(hmacFastPathEnabled);
+        JwtKeyring jwtKeyring = BenchmarkFixtures.jwtKeyring(jwtConfig);
+        TokenVerificationFilter tokenVerificationFilter = this.tokenVerificationFilter(jwtConfig, jwtKeyring);
+        String validToken = BenchmarkFixtures.accessToken(jwtConfig, jwtKeyring, jwtConfig.getExpiryTime(jwtConfig.getIssueTime()));
+
+        MockFilterChain filterChain = new MockFilterChain();
+        MockHttpServletResponse response = this.filter(tokenVerificationFilter, validToken, filterChain);
+
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertNotNull(filterChain.getRequest());
+        AppPrincipal principal = (AppPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertEquals("Bob", principal.getUsername());
+        assertEquals(EnumSet.of(PLAY_COURSE, VIEW_PROFILE), principal.getPermissions());
+    }
+
+    // The payload is only read by the HMAC fast path once the signature matched
+    @Test
+    void rejectsSignedTokenWithNullPayload() throws Exception {
+        JWTConfig jwtConfig = this.jwtConfig(true);
+        JwtKeyring jwtKeyring = BenchmarkFixtures.jwtKeyring(jwtConfig);
+        TokenVerificationFilter tokenVerificationFilter = this.tokenVerificationFilter(jwtConfig, jwtKeyring);
+        // Same header as a valid token, with a correctly signed payload that is the JSON literal null
+        String validToken = BenchmarkFixtures.accessToken(jwtConfig, jwtKeyring, jwtConfig.getExpiryTime(jwtConfig.getIssueTime()));
+        String signedContent = validToken.substring(0, validToken.indexOf('.')) + "." + this.encode("null".getBytes(StandardCharsets.UTF_8));
+        Mac mac = Mac.getInstance(jwtKeyring.getActiveKey().getAlgorithm().getJcaName());
+        mac.init(jwtKeyring.getActiveKey().getVerificationKey());
+        String nullPayloadToken = signedContent + "." + this.encode(mac.doFinal(signedContent.getBytes(StandardCharsets.US_ASCII)));
+
+        MockFilterChain filterChain = new MockFilterChain();
+        MockHttpServletResponse response = this.filter(tokenVerificationFilter, nullPayloadToken, filterChain);
+
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), response.getStatus());
+        assertTrue(response.getContentAsString().contains("\"reason\":\"MALFORMED\""));
+        assertNull(filterChain.getRequest());
+    }
+
+    private String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private JWTConfig jwtConfig(boolean hmacFastPathEnabled) {
+        JWTConfig jwtConfig = BenchmarkFixtures.jwtConfig(false);
+        jwtConfig.setHmacFastPathEnabled(hmacFastPathEnabled);
+        return jwtConfig;
+    }
+
+    private TokenVerificationFilter tokenVerificationFilter(JWTConfig jwtConfig) {
+        return this.tokenVerificationFilter(jwtConfig, BenchmarkFixtures.jwtKeyring(jwtConfig));
+    }
+
+    private TokenVerificationFilter tokenVerificationFilter(JWTConfig jwtConfig, JwtKeyring jwtKeyring) {
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+        setField(verifiedTokenCache, "jwtConfig", jwtConfig);
+        setField(verifiedTokenCache, "meterRegistry", new SimpleMeterRegistry());
+        verifiedTokenCache.init();
+
+        RevokedTokenRepository revokedTokenRepository = mock(RevokedTokenRepository.class);
+        when(revokedTokenRepository.findJtisExpiringAfter(any(Date.class))).thenReturn(Collections.emptyList());
+        TokenRevocationService tokenRevocationService = new TokenRevocationService();
+        setField(tokenRevocationService, "revokedTokenRepository", revokedTokenRepository);
+        setField(tokenRevocationService, "jwtConfig", jwtConfig);
+        tokenRevocationService.init();
+
+        TokenEpochChangeRepository tokenEpochChangeRepository = mock(TokenEpochChangeRepository.class);
+        when(tokenEpochChangeRepository.findByTokensValidAfterGreaterThan(any(Date.class))).thenReturn(Collections.emptyList());
+        TokenEpochService tokenEpochService = new TokenEpochService();
+        setField(tokenEpochService, "tokenEpochChangeRepository", tokenEpochChangeRepository);
+        setField(tokenEpochService, "jwtConfig", jwtConfig);
+        tokenEpochService.init();
+
+        TokenVerificationFilter tokenVerificationFilter = new TokenVerificationFilter();
+        setField(tokenVerificationFilter, "authenticationFacade", new AuthenticationFacade());
+        setField(tokenVerificationFilter, "jwtVerifier", BenchmarkFixtures.jwtVerifier(jwtConfig, jwtKeyring));
+        setField(tokenVerificationFilter, "verifiedTokenCache", verifiedTokenCache);
+        setField(tokenVerificationFilter, "permissionClaimCodec", new PermissionClaimCodec());
+        setField(tokenVerificationFilter, "tokenRevocationService", tokenRevocationService);
+        setField(tokenVerificationFilter, "tokenEpochService", tokenEpochService);
+        setField(tokenVerificationFilter, "meterRegistry", new SimpleMeterRegistry());
+        tokenVerificationFilter.init();
+        return tokenVerificationFilter;
+    }
+
+    private MockHttpServletResponse filter(TokenVerificationFilter tokenVerificationFilter, String accessToken, MockFilterChain filterChain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/students");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        tokenVerificationFilter.doFilter(request, response, filterChain);
+        return response;
+    }
+}
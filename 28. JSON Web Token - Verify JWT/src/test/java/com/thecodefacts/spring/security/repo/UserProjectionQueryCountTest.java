@@ -0,0 +1,159 @@
+package com.thecodefacts.spring.security.repo;
+
+import com.thecodefacts.spring.security.domain.AppPermission;
+import com.thecodefacts.spring.security.domain.AppRole;
+import com.thecodefacts.spring.security.domain.AppUser;
+import com.thecodefacts.spring.security.domain.Course;
+import com.thecodefacts.spring.security.enums.PermissionEnum;
+import com.thecodefacts.spring.security.enums.RoleEnum;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.thecodefacts.spring.security.enums.PermissionEnum.*;
+import static com.thecodefacts.spring.security.enums.RoleEnum.ADMIN;
+import static com.thecodefacts.spring.security.enums.RoleEnum.INSTRUCTOR;
+import static com.thecodefacts.spring.security.enums.RoleEnum.STUDENT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UserProjectionQueryCountTest {
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private AppRoleRepository appRoleRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    private Statistics statistics;
+
+    private Long courseId;
+
+    @BeforeEach
+    void setUp() {
+        AppPermission playCourse = testEntityManager.persist(AppPermission.builder().name(PLAY_COURSE).build());
+        AppPermission viewProfile = testEntityManager.persist(AppPermission.builder().name(VIEW_PROFILE).build());
+        AppPermission createCourse = testEntityManager.persist(AppPermission.builder().name(CREATE_COURSE).build());
+
+        AppRole student = testEntityManager.persist(AppRole.builder()
+                .name(STUDENT)
+                .permissions(new HashSet<>(Arrays.asList(playCourse, viewProfile)))
+                .build());
+        AppRole instructor = testEntityManager.persist(AppRole.builder()
+                .name(INSTRUCTOR)
+                .permissions(new HashSet<>(Arrays.asList(createCourse, viewProfile)))
+                .build());
+        testEntityManager.persist(AppRole.builder()
+                .name(ADMIN)
+                .permissions(Collections.emptySet())
+                .build());
+
+        AppUser appUser = testEntityManager.persist(AppUser.builder()
+                .username("john")
+                .password("password")
+                .roles(new HashSet<>(Arrays.asList(student, instructor)))
+                .build());
+        Course course = testEntityManager.persist(Course.builder()
+                .name("Spring Security")
+                .createdBy(appUser)
+                .build());
+        testEntityManager.persist(AppUser.builder()
+                .username("jane")
+                .password("password")
+                .roles(Collections.emptySet())
+                .enrolledCourses(Collections.singleton(course))
+                .build());
+
+        testEntityManager.flush();
+        testEntityManager.clear();
+        courseId = course.getId();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findRolesByUsernameIssuesOneStatement() {
+        List<UserRoleView> userRoles = appUserRepository.findRolesByUsername("john");
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(EnumSet.of(STUDENT, INSTRUCTOR), this.getRoles(userRoles));
+        assertTrue(userRoles.stream().allMatch(userRole -> "john".equals(userRole.getUsername())));
+    }
+
+    @Test
+    void findRolesByUsernameReturnsUserWithoutRoles() {
+        List<UserRoleView> userRoles = appUserRepository.findRolesByUsername("jane");
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, userRoles.size());
+        assertNull(userRoles.get(0).getRole());
+    }
+
+    @Test
+    void findRolesByUsernameReturnsNothingForUnknownUser() {
+        assertTrue(appUserRepository.findRolesByUsername("unknown").isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findRolePermissionsIssuesOneStatement() {
+        List<RolePermissionView> rolePermissions = appRoleRepository.findRolePermissions();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(EnumSet.of(PLAY_COURSE, VIEW_PROFILE), this.getPermissions(rolePermissions, STUDENT));
+        assertEquals(EnumSet.of(CREATE_COURSE, VIEW_PROFILE), this.getPermissions(rolePermissions, INSTRUCTOR));
+        // A role without permissions is still returned, once, with a null permission
+        assertTrue(rolePermissions.stream().anyMatch(rolePermission -> rolePermission.getRole() == ADMIN && rolePermission.getPermission() == null));
+    }
+
+    @Test
+    void countEnrollmentsIssuesOneStatement() {
+        assertEquals(1, courseRepository.countEnrollments("jane", courseId));
+        assertEquals(0, courseRepository.countEnrollments("john", courseId));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void countCreatedByIssuesOneStatement() {
+        assertEquals(1, courseRepository.countCreatedBy("john", courseId));
+        assertEquals(0, courseRepository.countCreatedBy("jane", courseId));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private Set<RoleEnum> getRoles(List<UserRoleView> userRoles) {
+        return userRoles.stream()
+                .map(UserRoleView::getRole)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(RoleEnum.class)));
+    }
+
+    private Set<PermissionEnum> getPermissions(List<RolePermissionView> rolePermissions, RoleEnum role) {
+        return rolePermissions.stream()
+                .filter(rolePermission -> rolePermission.getRole() == role)
+                .map(RolePermissionView::getPermission)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(PermissionEnum.class)));
+    }
+}
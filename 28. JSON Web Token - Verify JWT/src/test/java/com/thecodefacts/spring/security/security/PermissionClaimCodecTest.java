@@ -0,0 +1,79 @@
+package com.thecodefacts.spring.security.security;
+
+import com.thecodefacts.spring.security.benchmark.BenchmarkFixtures;
+import com.thecodefacts.spring.security.enums.TokenRejectionReason;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import static com.thecodefacts.spring.security.enums.PermissionEnum.PLAY_COURSE;
+import static com.thecodefacts.spring.security.enums.PermissionEnum.VIEW_PROFILE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PermissionClaimCodecTest {
+    private final PermissionClaimCodec permissionClaimCodec = new PermissionClaimCodec();
+
+    @Test
+    void decodesEncodedPermissions() {
+        List<GrantedAuthority> authorities = new ArrayList<>(BenchmarkFixtures.authorities(PLAY_COURSE, VIEW_PROFILE));
+
+        Claims claims = new DefaultClaims(permissionClaimCodec.encode(authorities));
+
+        assertEquals(authorities, permissionClaimCodec.decode(claims));
+    }
+
+    @Test
+    void reusesDecodedPermissionsOfSameMask() {
+        long mask = permissionClaimCodec.toMask(BenchmarkFixtures.authorities(PLAY_COURSE, VIEW_PROFILE));
+
+        assertSame(permissionClaimCodec.fromMask(mask), permissionClaimCodec.fromMask(mask));
+    }
+
+    @Test
+    void ignoresUnknownPermissionBits() {
+        long mask = permissionClaimCodec.toMask(BenchmarkFixtures.authorities(PLAY_COURSE));
+
+        assertEquals(permissionClaimCodec.fromMask(mask), permissionClaimCodec.fromMask(mask | 1L << 62));
+    }
+
+    @Test
+    void rejectsUnknownPermissionsVersion() {
+        Claims claims = new DefaultClaims(permissionClaimCodec.encode(BenchmarkFixtures.authorities(PLAY_COURSE)));
+        claims.put(PermissionClaimCodec.PERMISSIONS_VERSION_CLAIM, PermissionClaimCodec.PERMISSIONS_VERSION + 1);
+
+        TokenRejectedException exception = assertThrows(TokenRejectedException.class, () -> permissionClaimCodec.decode(claims));
+        assertEquals(TokenRejectionReason.UNSUPPORTED, exception.getReason());
+    }
+
+    @Test
+    void rejectsPermissionsWithoutVersion() {
+        Claims claims = new DefaultClaims(permissionClaimCodec.encode(BenchmarkFixtures.authorities(PLAY_COURSE)));
+        claims.remove(PermissionClaimCodec.PERMISSIONS_VERSION_CLAIM);
+
+        assertThrows(TokenRejectedException.class, () -> permissionClaimCodec.decode(claims));
+    }
+
+    @Test
+    void leavesUnknownLegacyAuthoritiesOutOfPermissions() {
+        Claims claims = new DefaultClaims();
+        claims.put(PermissionClaimCodec.LEGACY_AUTHORITIES_CLAIM, Arrays.asList(PLAY_COURSE.name(), "ROLE_STUDENT"));
+
+        assertEquals(EnumSet.of(PLAY_COURSE), permissionClaimCodec.toPermissions(permissionClaimCodec.decode(claims)));
+    }
+
+    @Test
+    void decodesLegacyAuthoritiesClaim() {
+        Claims claims = new DefaultClaims();
+        claims.put(PermissionClaimCodec.LEGACY_AUTHORITIES_CLAIM, Arrays.asList(PLAY_COURSE.name(), VIEW_PROFILE.name()));
+
+        assertEquals(new ArrayList<>(BenchmarkFixtures.authorities(PLAY_COURSE, VIEW_PROFILE)), permissionClaimCodec.decode(claims));
+    }
+}
@@ -0,0 +1,125 @@
+package com.thecodefacts.spring.security.service;
+
+import com.thecodefacts.spring.security.benchmark.BenchmarkFixtures;
+import com.thecodefacts.spring.security.config.JWTConfig;
+import com.thecodefacts.spring.security.domain.AppRefreshToken;
+import com.thecodefacts.spring.security.repo.AppRefreshTokenRepository;
+import com.thecodefacts.spring.security.security.AuthenticationFacade;
+import com.thecodefacts.spring.security.security.JwtKeyring;
+import com.thecodefacts.spring.security.security.PermissionClaimCodec;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Date;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.thecodefacts.spring.security.enums.PermissionEnum.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class AuthenticationServiceTest {
+    private final PermissionClaimCodec permissionClaimCodec = new PermissionClaimCodec();
+
+    private AuthenticationService authenticationService;
+
+    private JwtKeyring jwtKeyring;
+
+    private UserDetailsService userDetailsService;
+
+    private AppRefreshTokenRepository appRefreshTokenRepository;
+
+    @BeforeEach
+    void setUp() {
+        JWTConfig jwtConfig = BenchmarkFixtures.jwtConfig(false);
+        jwtKeyring = BenchmarkFixtures.jwtKeyring(jwtConfig);
+        userDetailsService = mock(UserDetailsService.class);
+
+        // The refresh token was issued while Gru was still an instructor
+        appRefreshTokenRepository = mock(AppRefreshTokenRepository.class);
+        when(appRefreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(AppRefreshToken.builder()
+                .id(1L)
+                .familyId(UUID.randomUUID().toString())
+                .username("Gru")
+                .permissions(permissionClaimCodec.toMask(BenchmarkFixtures.authorities(CREATE_COURSE, UPDATE_COURSE, PLAY_COURSE)))
+                .expiryTime(new Date(System.currentTimeMillis() + 3_600_000))
+                .build()));
+        when(appRefreshTokenRepository.markUsed(anyLong())).thenReturn(1);
+        when(appRefreshTokenRepository.save(any(AppRefreshToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        RefreshTokenService refreshTokenService = new RefreshTokenService();
+        setField(refreshTokenService, "appRefreshTokenRepository", appRefreshTokenRepository);
+        setField(refreshTokenService, "jwtConfig", jwtConfig);
+
+        authenticationService = new AuthenticationService();
+        setField(authenticationService, "authenticationFacade", new AuthenticationFacade());
+        setField(authenticationService, "jwtConfig", jwtConfig);
+        setField(authenticationService, "jwtKeyring", jwtKeyring);
+        setField(authenticationService, "permissionClaimCodec", permissionClaimCodec);
+        setField(authenticationService, "refreshTokenService", refreshTokenService);
+        setField(authenticationService, "userDetailsService", userDetailsService);
+    }
+
+    @Test
+    void refreshTokenUsesCurrentPermissions() {
+        when(userDetailsService.loadUserByUsername("Gru")).thenReturn(User.withUsername("Gru")
+                .password("{noop}password")
+                .authorities(BenchmarkFixtures.authorities(PLAY_COURSE))
+                .build());
+
+        Map<String, String> tokenResponse = authenticationService.refreshToken("refresh-token");
+
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKeyResolver(jwtKeyring)
+                .build()
+                .parseClaimsJws(tokenResponse.get("accessToken"))
+                .getBody();
+        Set<String> permissions = permissionClaimCodec.decode(claims).stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toSet());
+        assertEquals(Collections.singleton(PLAY_COURSE.name()), permissions);
+        verify(appRefreshTokenRepository).save(argThat(appRefreshToken ->
+                appRefreshToken.getPermissions() == permissionClaimCodec.toMask(BenchmarkFixtures.authorities(PLAY_COURSE))));
+    }
+
+    @Test
+    void refreshTokenRejectsDeletedUser() {
+        when(userDetailsService.loadUserByUsername("Gru")).thenThrow(new UsernameNotFoundException("User Gru not found"));
+
+        assertThrows(BadCredentialsException.class, () -> authenticationService.refreshToken("refresh-token"));
+        verify(appRefreshTokenRepository, never()).save(any(AppRefreshToken.class));
+    }
+
+    @Test
+    void refreshTokenRejectsDisabledUser() {
+        when(userDetailsService.loadUserByUsername("Gru")).thenReturn(User.withUsername("Gru")
+                .password("{noop}password")
+                .authorities(BenchmarkFixtures.authorities(PLAY_COURSE))
+                .disabled(true)
+                .build());
+
+        assertThrows(DisabledException.class, () -> authenticationService.refreshToken("refresh-token"));
+        verify(appRefreshTokenRepository, never()).save(any(AppRefreshToken.class));
+    }
+}
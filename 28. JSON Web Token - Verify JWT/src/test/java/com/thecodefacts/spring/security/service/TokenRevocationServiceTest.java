@@ -0,0 +1,70 @@
+package com.thecodefacts.spring.security.service;
+
+import com.thecodefacts.spring.security.benchmark.BenchmarkFixtures;
+import com.thecodefacts.spring.security.repo.RevokedTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+class TokenRevocationServiceTest {
+    private TokenRevocationService tokenRevocationService;
+
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @BeforeEach
+    void setUp() {
+        revokedTokenRepository = mock(RevokedTokenRepository.class);
+        when(revokedTokenRepository.findJtisExpiringAfter(any(Date.class))).thenReturn(Collections.emptyList());
+        // Every filter hit is confirmed, so only the filter decides in these tests
+        when(revokedTokenRepository.existsById(anyString())).thenReturn(true);
+
+        tokenRevocationService = new TokenRevocationService();
+        setField(tokenRevocationService, "revokedTokenRepository", revokedTokenRepository);
+        setField(tokenRevocationService, "jwtConfig", BenchmarkFixtures.jwtConfig(false));
+        tokenRevocationService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void addsRevokedJtiOnlyOnceCommitted() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        tokenRevocationService.revoke("jti-1", new Date(System.currentTimeMillis() + 60_000));
+        assertFalse(tokenRevocationService.isRevoked("jti-1"));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(tokenRevocationService.isRevoked("jti-1"));
+    }
+
+    // The rebuild query ran before the revocation committed, so it does not return the new row
+    @Test
+    void keepsJtiRevokedDuringRebuild() {
+        when(revokedTokenRepository.findJtisExpiringAfter(any(Date.class))).thenAnswer(invocation -> {
+            tokenRevocationService.revoke("jti-1", new Date(System.currentTimeMillis() + 60_000));
+            return Collections.emptyList();
+        });
+
+        tokenRevocationService.refresh();
+
+        assertTrue(tokenRevocationService.isRevoked("jti-1"));
+    }
+}